@@ -0,0 +1,8 @@
+package java.com.smartnotes.ai;
+
+public record AiCompletionRequest(
+    String model,
+    String prompt,
+    int maxTokens,
+    double temperature
+) {}
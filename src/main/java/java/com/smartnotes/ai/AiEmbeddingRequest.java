@@ -0,0 +1,7 @@
+package java.com.smartnotes.ai;
+
+public record AiEmbeddingRequest(
+    String model,
+    String text,
+    int dimensions
+) {}
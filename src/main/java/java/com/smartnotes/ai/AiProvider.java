@@ -0,0 +1,26 @@
+package java.com.smartnotes.ai;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A text-generation and embedding backend. Implementations must be non-blocking;
+ * admission control and rate limiting are applied by the caller.
+ */
+public interface AiProvider {
+
+    /**
+     * Generates the full completion for the request.
+     */
+    Mono<String> complete(AiCompletionRequest request);
+
+    /**
+     * Generates the completion incrementally, emitting text fragments as they arrive.
+     */
+    Flux<String> stream(AiCompletionRequest request);
+
+    /**
+     * Embeds the text as a vector with the requested number of dimensions.
+     */
+    Mono<float[]> embed(AiEmbeddingRequest request);
+}
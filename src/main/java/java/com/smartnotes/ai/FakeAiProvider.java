@@ -0,0 +1,102 @@
+package java.com.smartnotes.ai;
+
+import java.com.smartnotes.config.FakeAiProviderConfig;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-process stand-in for a real provider. The generated text is a pure
+ * function of the prompt, while latency and failures are drawn from the
+ * configured distributions. Waiting is done on Reactor timers, so thousands
+ * of concurrent calls cost no threads. Embeddings come from {@link HashingEmbedder}
+ * and are returned without delay.
+ */
+public class FakeAiProvider implements AiProvider {
+
+    public enum LatencyDistribution {
+        FIXED,
+        NORMAL,
+        LONG_TAIL
+    }
+
+    private static final int MAX_LINES = 5;
+    private static final int WORDS_PER_LINE = 6;
+
+    private final FakeAiProviderConfig.FakeAiProperties properties;
+
+    public FakeAiProvider(FakeAiProviderConfig.FakeAiProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<String> complete(AiCompletionRequest request) {
+        return Mono.delay(sampleLatency())
+                .flatMap(tick -> shouldFail()
+                        ? Mono.error(new IllegalStateException("Simulated AI provider failure"))
+                        : Mono.just(respond(request.prompt())));
+    }
+
+    @Override
+    public Flux<String> stream(AiCompletionRequest request) {
+        String[] fragments = respond(request.prompt()).split("(?<= )");
+        Duration perFragment = sampleLatency().dividedBy(fragments.length);
+        Flux<String> stream = Flux.fromArray(fragments).delayElements(perFragment);
+        if (shouldFail()) {
+            // Fail part way through, as a dropped stream would
+            int failAt = ThreadLocalRandom.current().nextInt(fragments.length);
+            return stream.take(failAt)
+                    .concatWith(Mono.error(new IllegalStateException("Simulated AI provider failure")));
+        }
+        return stream;
+    }
+
+    @Override
+    public Mono<float[]> embed(AiEmbeddingRequest request) {
+        return Mono.fromSupplier(() -> HashingEmbedder.embed(request.text(), request.dimensions()));
+    }
+
+    /**
+     * Builds a few lines out of the words following the prompt's instruction, so
+     * both summaries and task lists get plausible, repeatable text.
+     */
+    private String respond(String prompt) {
+        int bodyStart = prompt.indexOf("\n\n");
+        String body = bodyStart >= 0 ? prompt.substring(bodyStart + 2) : prompt;
+        List<String> words = Arrays.stream(body.split("\\s+"))
+                .filter(word -> !word.isBlank())
+                .toList();
+        if (words.isEmpty()) {
+            return "Nothing to summarize.";
+        }
+
+        List<String> lines = new ArrayList<>();
+        int stride = Math.max(WORDS_PER_LINE, words.size() / MAX_LINES);
+        for (int start = 0; start < words.size() && lines.size() < MAX_LINES; start += stride) {
+            List<String> lineWords = words.subList(start, Math.min(start + WORDS_PER_LINE, words.size()));
+            lines.add("Review " + String.join(" ", lineWords));
+        }
+        return String.join("\n", lines);
+    }
+
+    private Duration sampleLatency() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double millis = switch (properties.getLatencyDistribution()) {
+            case FIXED -> properties.getLatencyMs();
+            case NORMAL -> properties.getLatencyMs() + random.nextGaussian() * properties.getLatencyStdDevMs();
+            // Pareto with minimum latencyMs: most calls are near the minimum, a few are very slow
+            case LONG_TAIL -> properties.getLatencyMs() / Math.pow(1 - random.nextDouble(), 1 / properties.getTailShape());
+        };
+        long clamped = Math.max(0, Math.min(properties.getMaxLatencyMs(), Math.round(millis)));
+        return Duration.ofMillis(clamped);
+    }
+
+    private boolean shouldFail() {
+        return properties.getErrorRate() > 0 && ThreadLocalRandom.current().nextDouble() < properties.getErrorRate();
+    }
+}
@@ -0,0 +1,52 @@
+package java.com.smartnotes.ai;
+
+import java.util.Locale;
+
+/**
+ * Deterministic stand-in for an embedding model. Every word and adjacent word pair
+ * is hashed to a dimension and a sign, and the sum is normalized to unit length, so
+ * texts that share vocabulary end up close together. That is enough to exercise
+ * semantic search in tests and offline development.
+ */
+final class HashingEmbedder {
+
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float PAIR_WEIGHT = 0.5f;
+
+    private HashingEmbedder() {
+    }
+
+    static float[] embed(String text, int dimensions) {
+        float[] vector = new float[dimensions];
+        String previous = null;
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            add(vector, word, WORD_WEIGHT);
+            if (previous != null) {
+                add(vector, previous + ' ' + word, PAIR_WEIGHT);
+            }
+            previous = word;
+        }
+
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    private static void add(float[] vector, String feature, float weight) {
+        // Spread String.hashCode's low bits before taking the index and sign
+        int hash = feature.hashCode() * 0x9E3779B9;
+        int index = (hash & Integer.MAX_VALUE) % vector.length;
+        vector[index] += hash < 0 ? -weight : weight;
+    }
+}
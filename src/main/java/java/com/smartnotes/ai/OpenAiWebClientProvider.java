@@ -0,0 +1,104 @@
+package java.com.smartnotes.ai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link AiProvider} for the OpenAI chat completions and embeddings APIs, built on
+ * a shared, pooled {@link WebClient}. Streaming uses the API's server-sent events mode.
+ */
+@RequiredArgsConstructor
+public class OpenAiWebClientProvider implements AiProvider {
+
+    private static final String STREAM_DONE = "[DONE]";
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+
+    @Override
+    public Mono<String> complete(AiCompletionRequest request) {
+        return webClient.post()
+                .uri("/chat/completions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body(request, false))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(response -> response.path("choices").path(0).path("message").path("content").asText())
+                .timeout(timeout);
+    }
+
+    @Override
+    public Flux<String> stream(AiCompletionRequest request) {
+        return webClient.post()
+                .uri("/chat/completions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(body(request, true))
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                // Applies between chunks, so a long but steadily progressing stream is not cut off
+                .timeout(timeout)
+                .mapNotNull(ServerSentEvent::data)
+                .takeWhile(data -> !STREAM_DONE.equals(data))
+                .mapNotNull(this::deltaContent);
+    }
+
+    @Override
+    public Mono<float[]> embed(AiEmbeddingRequest request) {
+        return webClient.post()
+                .uri("/embeddings")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of(
+                        "model", request.model(),
+                        "input", request.text(),
+                        "dimensions", request.dimensions()
+                ))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(response -> toVector(response.path("data").path(0).path("embedding")))
+                .timeout(timeout);
+    }
+
+    private static float[] toVector(JsonNode embedding) {
+        if (!embedding.isArray() || embedding.isEmpty()) {
+            throw new IllegalStateException("OpenAI returned no embedding");
+        }
+        float[] vector = new float[embedding.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) embedding.get(i).asDouble();
+        }
+        return vector;
+    }
+
+    private Map<String, Object> body(AiCompletionRequest request, boolean stream) {
+        return Map.of(
+                "model", request.model(),
+                "messages", List.of(Map.of("role", "user", "content", request.prompt())),
+                "max_tokens", request.maxTokens(),
+                "temperature", request.temperature(),
+                "stream", stream
+        );
+    }
+
+    private String deltaContent(String data) {
+        try {
+            JsonNode content = objectMapper.readTree(data).path("choices").path(0).path("delta").path("content");
+            return content.isTextual() ? content.asText() : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Malformed streaming chunk from OpenAI: " + e.getOriginalMessage(), e);
+        }
+    }
+}
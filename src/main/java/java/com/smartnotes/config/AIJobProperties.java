@@ -0,0 +1,36 @@
+package java.com.smartnotes.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.ai.jobs")
+public class AIJobProperties {
+    // Number of jobs this instance processes concurrently
+    private int workers = 4;
+    // How long an idle worker waits before polling for new jobs
+    private long pollIntervalMs = 1000;
+    // A job whose worker has not finished within the lease is handed to another worker
+    private long leaseSeconds = 120;
+    // Time allowed for one attempt; shorter than the lease so a timed-out attempt is still recorded and retried
+    private long timeoutSeconds = 100;
+    private int maxAttempts = 5;
+    private long backoffBaseSeconds = 5;
+    private long backoffMaxSeconds = 300;
+
+    // Getters and setters
+    public int getWorkers() { return workers; }
+    public void setWorkers(int workers) { this.workers = workers; }
+    public long getPollIntervalMs() { return pollIntervalMs; }
+    public void setPollIntervalMs(long pollIntervalMs) { this.pollIntervalMs = pollIntervalMs; }
+    public long getLeaseSeconds() { return leaseSeconds; }
+    public void setLeaseSeconds(long leaseSeconds) { this.leaseSeconds = leaseSeconds; }
+    public long getTimeoutSeconds() { return timeoutSeconds; }
+    public void setTimeoutSeconds(long timeoutSeconds) { this.timeoutSeconds = timeoutSeconds; }
+    public int getMaxAttempts() { return maxAttempts; }
+    public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+    public long getBackoffBaseSeconds() { return backoffBaseSeconds; }
+    public void setBackoffBaseSeconds(long backoffBaseSeconds) { this.backoffBaseSeconds = backoffBaseSeconds; }
+    public long getBackoffMaxSeconds() { return backoffMaxSeconds; }
+    public void setBackoffMaxSeconds(long backoffMaxSeconds) { this.backoffMaxSeconds = backoffMaxSeconds; }
+}
@@ -0,0 +1,30 @@
+package java.com.smartnotes.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.ai.scheduler")
+public class AISchedulerProperties {
+    // Maximum number of AI calls in progress at once across all users
+    private int maxConcurrent = 8;
+    // Maximum number of calls waiting for a slot before new ones are rejected with 503
+    private int maxQueueSize = 500;
+    // Maximum number of calls one user may have waiting, so a single user cannot fill the queue
+    private int maxQueuePerUser = 50;
+    // Sustained provider request rate and the burst allowed on top of it
+    private int requestsPerMinute = 500;
+    private int burstCapacity = 10;
+
+    // Getters and setters
+    public int getMaxConcurrent() { return maxConcurrent; }
+    public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+    public int getMaxQueueSize() { return maxQueueSize; }
+    public void setMaxQueueSize(int maxQueueSize) { this.maxQueueSize = maxQueueSize; }
+    public int getMaxQueuePerUser() { return maxQueuePerUser; }
+    public void setMaxQueuePerUser(int maxQueuePerUser) { this.maxQueuePerUser = maxQueuePerUser; }
+    public int getRequestsPerMinute() { return requestsPerMinute; }
+    public void setRequestsPerMinute(int requestsPerMinute) { this.requestsPerMinute = requestsPerMinute; }
+    public int getBurstCapacity() { return burstCapacity; }
+    public void setBurstCapacity(int burstCapacity) { this.burstCapacity = burstCapacity; }
+}
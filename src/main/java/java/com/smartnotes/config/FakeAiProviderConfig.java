@@ -0,0 +1,54 @@
+package java.com.smartnotes.config;
+
+import java.com.smartnotes.ai.AiProvider;
+import java.com.smartnotes.ai.FakeAiProvider;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces the OpenAI provider with an in-process fake when {@code app.ai.provider=fake},
+ * for load tests and offline development.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.ai", name = "provider", havingValue = "fake")
+@RequiredArgsConstructor
+public class FakeAiProviderConfig {
+
+    private final FakeAiProperties properties;
+
+    @Bean
+    public AiProvider fakeAiProvider() {
+        return new FakeAiProvider(properties);
+    }
+
+    @Configuration
+    @ConfigurationProperties(prefix = "app.ai.fake")
+    public static class FakeAiProperties {
+        private FakeAiProvider.LatencyDistribution latencyDistribution = FakeAiProvider.LatencyDistribution.FIXED;
+        // Fixed latency, mean of the normal distribution, or scale (minimum) of the long tail
+        private long latencyMs = 800;
+        private long latencyStdDevMs = 200;
+        // Pareto shape for LONG_TAIL; lower means a heavier tail
+        private double tailShape = 1.5;
+        private long maxLatencyMs = 30000;
+        // Fraction of calls that fail after their latency has elapsed
+        private double errorRate = 0.0;
+
+        // Getters and setters
+        public FakeAiProvider.LatencyDistribution getLatencyDistribution() { return latencyDistribution; }
+        public void setLatencyDistribution(FakeAiProvider.LatencyDistribution latencyDistribution) { this.latencyDistribution = latencyDistribution; }
+        public long getLatencyMs() { return latencyMs; }
+        public void setLatencyMs(long latencyMs) { this.latencyMs = latencyMs; }
+        public long getLatencyStdDevMs() { return latencyStdDevMs; }
+        public void setLatencyStdDevMs(long latencyStdDevMs) { this.latencyStdDevMs = latencyStdDevMs; }
+        public double getTailShape() { return tailShape; }
+        public void setTailShape(double tailShape) { this.tailShape = tailShape; }
+        public long getMaxLatencyMs() { return maxLatencyMs; }
+        public void setMaxLatencyMs(long maxLatencyMs) { this.maxLatencyMs = maxLatencyMs; }
+        public double getErrorRate() { return errorRate; }
+        public void setErrorRate(double errorRate) { this.errorRate = errorRate; }
+    }
+}
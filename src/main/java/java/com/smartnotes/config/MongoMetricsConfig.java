@@ -0,0 +1,58 @@
+package java.com.smartnotes.config;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.com.smartnotes.repository.metrics.MongoCommandMetrics;
+import java.com.smartnotes.repository.metrics.MongoPoolMetrics;
+import java.com.smartnotes.repository.metrics.ReactorRequestContext;
+import java.com.smartnotes.repository.metrics.RepositoryMetricsInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+@Configuration
+public class MongoMetricsConfig {
+
+    @Bean
+    public MongoCommandMetrics mongoCommandMetrics(MeterRegistry meterRegistry, MongoMetricsProperties properties,
+                                                   ObjectProvider<MongoClient> mongoClient) {
+        return new MongoCommandMetrics(meterRegistry, properties, mongoClient);
+    }
+
+    @Bean
+    public MongoPoolMetrics mongoPoolMetrics(MeterRegistry meterRegistry) {
+        return new MongoPoolMetrics(meterRegistry);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoMetricsCustomizer(MongoCommandMetrics commandMetrics,
+                                                                       MongoPoolMetrics poolMetrics) {
+        return settings -> settings
+                .addCommandListener(commandMetrics)
+                .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(poolMetrics))
+                // Lets the command listener see which repository method a command came from
+                .contextProvider(ReactorRequestContext.PROVIDER);
+    }
+
+    /**
+     * Adds {@link RepositoryMetricsInterceptor} to every Spring Data repository as it is
+     * created. Static so it is registered before the repository factory beans.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repository) -> proxyFactory.addAdvice(new RepositoryMetricsInterceptor(
+                                    repository.getRepositoryInterface().getSimpleName(), meterRegistry.getObject()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package java.com.smartnotes.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.mongo.metrics")
+public class MongoMetricsProperties {
+    // Commands at least this slow are logged with their filter shape; 0 turns the log off
+    private long slowQueryThresholdMs = 100;
+    // Look up the plan of slow queries with explain
+    private boolean explainSlowQueries = true;
+    // Each filter shape is explained at most once per interval
+    private long explainIntervalSeconds = 300;
+
+    // Getters and setters
+    public long getSlowQueryThresholdMs() { return slowQueryThresholdMs; }
+    public void setSlowQueryThresholdMs(long slowQueryThresholdMs) { this.slowQueryThresholdMs = slowQueryThresholdMs; }
+    public boolean isExplainSlowQueries() { return explainSlowQueries; }
+    public void setExplainSlowQueries(boolean explainSlowQueries) { this.explainSlowQueries = explainSlowQueries; }
+    public long getExplainIntervalSeconds() { return explainIntervalSeconds; }
+    public void setExplainIntervalSeconds(long explainIntervalSeconds) { this.explainIntervalSeconds = explainIntervalSeconds; }
+}
@@ -1,10 +1,19 @@
 package java.com.smartnotes.config;
 
-import com.theokanning.openai.service.OpenAiService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.com.smartnotes.ai.AiProvider;
+import java.com.smartnotes.ai.OpenAiWebClientProvider;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
 
@@ -14,9 +23,39 @@ public class OpenAIConfig {
 
     private final OpenAIConfigProperties properties;
 
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider openAiConnectionProvider() {
+        return ConnectionProvider.builder("openai")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getMaxConnections() * 4)
+                .pendingAcquireTimeout(Duration.ofSeconds(properties.getTimeoutSeconds()))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .maxLifeTime(Duration.ofMinutes(5))
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true)
+                .build();
+    }
+
     @Bean
-    public OpenAiService openAiService() {
-        return new OpenAiService(properties.getApiKey(), Duration.ofSeconds(properties.getTimeoutSeconds()));
+    @ConditionalOnProperty(prefix = "app.ai", name = "provider", havingValue = "openai", matchIfMissing = true)
+    public AiProvider openAiProvider(WebClient.Builder webClientBuilder,
+                                     ConnectionProvider openAiConnectionProvider,
+                                     ObjectMapper objectMapper) {
+        Duration timeout = Duration.ofSeconds(properties.getTimeoutSeconds());
+        HttpClient httpClient = HttpClient.create(openAiConnectionProvider)
+                .responseTimeout(timeout)
+                .compress(true);
+        // Negotiate HTTP/2 via ALPN over TLS; plain-HTTP endpoints (local stubs) stay on HTTP/1.1
+        if (properties.getBaseUrl().startsWith("https")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+
+        WebClient webClient = webClientBuilder.clone()
+                .baseUrl(properties.getBaseUrl())
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + properties.getApiKey())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        return new OpenAiWebClientProvider(webClient, objectMapper, timeout);
     }
 
     @Configuration
@@ -24,21 +63,37 @@ public class OpenAIConfig {
     @RequiredArgsConstructor
     public static class OpenAIConfigProperties {
         private String apiKey;
+        private String baseUrl = "https://api.openai.com/v1";
         private int timeoutSeconds = 30;
+        private int maxConnections = 50;
         private String model = "gpt-3.5-turbo-instruct";
         private int maxTokens = 500;
         private double temperature = 0.7;
+        // Content longer than this is summarized chunk by chunk (roughly 4 characters per token)
+        private int maxChunkChars = 12000;
+        private String embeddingModel = "text-embedding-3-small";
+        private int embeddingDimensions = 256;
 
         // Getters and setters
         public String getApiKey() { return apiKey; }
         public void setApiKey(String apiKey) { this.apiKey = apiKey; }
+        public String getBaseUrl() { return baseUrl; }
+        public void setBaseUrl(String baseUrl) { this.baseUrl = baseUrl; }
         public int getTimeoutSeconds() { return timeoutSeconds; }
         public void setTimeoutSeconds(int timeoutSeconds) { this.timeoutSeconds = timeoutSeconds; }
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
         public String getModel() { return model; }
         public void setModel(String model) { this.model = model; }
         public int getMaxTokens() { return maxTokens; }
         public void setMaxTokens(int maxTokens) { this.maxTokens = maxTokens; }
         public double getTemperature() { return temperature; }
         public void setTemperature(double temperature) { this.temperature = temperature; }
+        public int getMaxChunkChars() { return maxChunkChars; }
+        public void setMaxChunkChars(int maxChunkChars) { this.maxChunkChars = maxChunkChars; }
+        public String getEmbeddingModel() { return embeddingModel; }
+        public void setEmbeddingModel(String embeddingModel) { this.embeddingModel = embeddingModel; }
+        public int getEmbeddingDimensions() { return embeddingDimensions; }
+        public void setEmbeddingDimensions(int embeddingDimensions) { this.embeddingDimensions = embeddingDimensions; }
     }
 }
@@ -0,0 +1,70 @@
+package java.com.smartnotes.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt takes tens of milliseconds per hash, so hashing and verification run on a
+ * small dedicated pool instead of the Netty event loop. The pool's queue is bounded;
+ * when it is full, new logins and signups fail fast with 503 rather than piling up.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class PasswordHashingConfig {
+
+    private final PasswordHashingProperties properties;
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder(properties.getStrength());
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler passwordHashingScheduler(MeterRegistry meterRegistry) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                properties.getThreads(), properties.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueSize()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // executor.queued, executor.active, executor.completed etc. tagged name=password-hashing
+        ExecutorService monitored = ExecutorServiceMetrics.monitor(meterRegistry, executor, "password-hashing");
+        return Schedulers.fromExecutorService(monitored, "password-hashing");
+    }
+
+    @Configuration
+    @ConfigurationProperties(prefix = "app.security.password")
+    public static class PasswordHashingProperties {
+        // BCrypt log rounds; each step doubles the cost of a hash
+        private int strength = 10;
+        private int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        // Hashes waiting for a thread before new ones are rejected
+        private int queueSize = 200;
+
+        // Getters and setters
+        public int getStrength() { return strength; }
+        public void setStrength(int strength) { this.strength = strength; }
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+        public int getQueueSize() { return queueSize; }
+        public void setQueueSize(int queueSize) { this.queueSize = queueSize; }
+    }
+}
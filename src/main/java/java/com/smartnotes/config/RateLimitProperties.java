@@ -0,0 +1,46 @@
+package java.com.smartnotes.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    // Applies to every API call
+    private Limit standard = new Limit(300, 60);
+    // Stricter limit for routes that call the AI provider
+    private Limit ai = new Limit(10, 5);
+    // How often buckets that have refilled completely are dropped
+    private long idleSweepSeconds = 60;
+
+    // Getters and setters
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Limit getStandard() { return standard; }
+    public void setStandard(Limit standard) { this.standard = standard; }
+    public Limit getAi() { return ai; }
+    public void setAi(Limit ai) { this.ai = ai; }
+    public long getIdleSweepSeconds() { return idleSweepSeconds; }
+    public void setIdleSweepSeconds(long idleSweepSeconds) { this.idleSweepSeconds = idleSweepSeconds; }
+
+    public static class Limit {
+        // Sustained rate and the number of requests allowed back to back
+        private int requestsPerMinute;
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(int requestsPerMinute, int burst) {
+            this.requestsPerMinute = requestsPerMinute;
+            this.burst = burst;
+        }
+
+        // Getters and setters
+        public int getRequestsPerMinute() { return requestsPerMinute; }
+        public void setRequestsPerMinute(int requestsPerMinute) { this.requestsPerMinute = requestsPerMinute; }
+        public int getBurst() { return burst; }
+        public void setBurst(int burst) { this.burst = burst; }
+    }
+}
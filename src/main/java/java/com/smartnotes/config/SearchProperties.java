@@ -0,0 +1,42 @@
+package java.com.smartnotes.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.search")
+public class SearchProperties {
+    // Estimated memory for all in-memory indexes; least recently used users are evicted beyond it
+    private long memoryBudgetMb = 256;
+    private int maxResults = 50;
+    private Semantic semantic = new Semantic();
+
+    // Getters and setters
+    public long getMemoryBudgetMb() { return memoryBudgetMb; }
+    public void setMemoryBudgetMb(long memoryBudgetMb) { this.memoryBudgetMb = memoryBudgetMb; }
+    public int getMaxResults() { return maxResults; }
+    public void setMaxResults(int maxResults) { this.maxResults = maxResults; }
+    public Semantic getSemantic() { return semantic; }
+    public void setSemantic(Semantic semantic) { this.semantic = semantic; }
+
+    public static class Semantic {
+        private long memoryBudgetMb = 512;
+        // HNSW neighbours per node (twice this on the bottom layer)
+        private int maxLinks = 16;
+        private int efConstruction = 100;
+        private int efSearch = 64;
+        private int backfillConcurrency = 2;
+
+        // Getters and setters
+        public long getMemoryBudgetMb() { return memoryBudgetMb; }
+        public void setMemoryBudgetMb(long memoryBudgetMb) { this.memoryBudgetMb = memoryBudgetMb; }
+        public int getMaxLinks() { return maxLinks; }
+        public void setMaxLinks(int maxLinks) { this.maxLinks = maxLinks; }
+        public int getEfConstruction() { return efConstruction; }
+        public void setEfConstruction(int efConstruction) { this.efConstruction = efConstruction; }
+        public int getEfSearch() { return efSearch; }
+        public void setEfSearch(int efSearch) { this.efSearch = efSearch; }
+        public int getBackfillConcurrency() { return backfillConcurrency; }
+        public void setBackfillConcurrency(int backfillConcurrency) { this.backfillConcurrency = backfillConcurrency; }
+    }
+}
@@ -0,0 +1,19 @@
+package java.com.smartnotes.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.users.cache")
+public class UserCacheProperties {
+    // Users kept in memory; least recently used entries are evicted beyond this
+    private long maxSize = 10000;
+    // How long a cached user is served before it is read from the database again
+    private long ttlSeconds = 300;
+
+    // Getters and setters
+    public long getMaxSize() { return maxSize; }
+    public void setMaxSize(long maxSize) { this.maxSize = maxSize; }
+    public long getTtlSeconds() { return ttlSeconds; }
+    public void setTtlSeconds(long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+}
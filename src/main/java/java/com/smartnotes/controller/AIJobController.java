@@ -0,0 +1,37 @@
+package java.com.smartnotes.controller;
+
+import java.com.smartnotes.dto.AIJobDto;
+import java.com.smartnotes.dto.CreateAIJobRequest;
+import java.com.smartnotes.service.AIJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/ai/jobs")
+@RequiredArgsConstructor
+@Tag(name = "AI Jobs", description = "APIs for running AI operations in the background")
+@SecurityRequirement(name = "bearerAuth")
+public class AIJobController {
+
+    private final AIJobService jobService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(summary = "Enqueue an AI job", description = "Queue a summary or task generation for a note and return immediately with the job ID")
+    public Mono<AIJobDto> enqueueJob(@Valid @RequestBody CreateAIJobRequest request) {
+        return jobService.enqueueJob(request);
+    }
+
+    @GetMapping("/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Get AI job status", description = "Poll the status of an AI job and retrieve its result once it has succeeded")
+    public Mono<AIJobDto> getJob(@PathVariable String id) {
+        return jobService.getJobById(id);
+    }
+}
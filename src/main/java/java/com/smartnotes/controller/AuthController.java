@@ -1,6 +1,8 @@
 package java.com.smartnotes.controller;
 
 import com.smartnotes.security.jwt.JwtTokenProvider;
+import java.com.smartnotes.security.SecurityUtils;
+import java.com.smartnotes.security.jwt.AuthenticatedUser;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -21,6 +23,7 @@ import java.util.Map;
 public class AuthController {
 
     private final JwtTokenProvider tokenProvider;
+    private final SecurityUtils securityUtils;
 
     @GetMapping("/me")
     @Operation(summary = "Get current user info", description = "Get information about the currently authenticated user")
@@ -43,7 +46,17 @@ public class AuthController {
             return Mono.just(ResponseEntity.status(401).build());
         }
 
-        String token = tokenProvider.generateToken(authentication);
-        return Mono.just(ResponseEntity.ok(Map.of("token", token)));
+        // Bearer token requests already carry the id, session logins are looked up
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return Mono.just(tokenResponse(principal.id(), principal.email()));
+        }
+        return securityUtils.getCurrentUser()
+                .map(user -> tokenResponse(user.getId(), user.getEmail()))
+                .defaultIfEmpty(ResponseEntity.status(401).build());
+    }
+
+    private ResponseEntity<Map<String, String>> tokenResponse(String userId, String email) {
+        String token = tokenProvider.generateToken(userId, email);
+        return ResponseEntity.ok(Map.of("token", token));
     }
 }
@@ -2,13 +2,23 @@ package java.com.smartnotes.controller;
 
 import com.smartnotes.dto.CreateNoteRequest;
 import com.smartnotes.dto.NoteDto;
+import com.smartnotes.exception.ResourceNotFoundException;
+import java.com.smartnotes.exception.AIQueueFullException;
+import java.com.smartnotes.dto.NoteListItemDto;
+import java.com.smartnotes.dto.PageResponse;
+import java.com.smartnotes.dto.PatchNoteRequest;
+import java.com.smartnotes.dto.SearchResultDto;
+import java.com.smartnotes.search.SemanticSearchService;
 import com.smartnotes.service.NoteService;
+import java.com.smartnotes.service.AIService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -21,14 +31,37 @@ import reactor.core.publisher.Mono;
 public class NoteController {
 
     private final NoteService noteService;
+    private final SemanticSearchService semanticSearchService;
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
     @Operation(summary = "Get all notes", description = "Retrieve all notes for the current user")
     public Flux<NoteDto> getAllNotes(
+            @RequestParam(required = false, defaultValue = "false") boolean includeArchived,
+            @RequestParam(required = false) String fields
+    ) {
+        return noteService.getUserNotes(includeArchived, fields);
+    }
+
+    @GetMapping("/list")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Get notes for list views", description = "Retrieve id, title, a short content preview, timestamps and archived flag for all notes, without note bodies")
+    public Flux<NoteListItemDto> getNoteListItems(
             @RequestParam(required = false, defaultValue = "false") boolean includeArchived
     ) {
-        return noteService.getUserNotes(includeArchived);
+        return noteService.getUserNoteListItems(includeArchived);
+    }
+
+    @GetMapping("/page")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Get a page of notes", description = "Retrieve notes newest first, one page at a time. Pass the returned nextCursor to get the following page")
+    public Mono<PageResponse<NoteDto>> getNotesPage(
+            @RequestParam(required = false, defaultValue = "false") boolean includeArchived,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") int limit,
+            @RequestParam(required = false) String fields
+    ) {
+        return noteService.getUserNotesPage(includeArchived, cursor, limit, fields);
     }
 
     @GetMapping("/{id}")
@@ -38,6 +71,16 @@ public class NoteController {
         return noteService.getNoteById(id);
     }
 
+    @GetMapping("/{id}/related")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Get related notes", description = "Retrieve the user's notes closest in meaning to the given note, by embedding similarity")
+    public Flux<SearchResultDto> getRelatedNotes(
+            @PathVariable String id,
+            @RequestParam(required = false, defaultValue = "10") int limit
+    ) {
+        return semanticSearchService.related(id, limit);
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Create a new note", description = "Create a new note with the provided details")
@@ -45,6 +88,16 @@ public class NoteController {
         return noteService.createNote(request);
     }
 
+    @PatchMapping("/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Partially update a note", description = "Update only the fields present in the request. Fails with 409 if the note has changed since the given version")
+    public Mono<NoteDto> patchNote(
+            @PathVariable String id,
+            @Valid @RequestBody PatchNoteRequest request
+    ) {
+        return noteService.patchNote(id, request);
+    }
+
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     @Operation(summary = "Update a note", description = "Update an existing note with the provided details")
@@ -78,4 +131,16 @@ public class NoteController {
     public Mono<String> generateSummary(@PathVariable String id) {
         return noteService.generateSummary(id);
     }
+
+    @PostMapping(value = "/{id}/summarize/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream a summary", description = "Generate a summary for a note using AI, streaming tokens as Server-Sent Events")
+    public Flux<ServerSentEvent<String>> streamSummary(@PathVariable String id) {
+        return noteService.streamSummary(id)
+                .map(token -> ServerSentEvent.builder(token).event("token").build())
+                .concatWithValues(ServerSentEvent.<String>builder().event("done").build())
+                // Failures before the stream starts keep their HTTP status; a stream that breaks
+                // off ends with an error event and no done, so partial text is never taken as complete
+                .onErrorResume(e -> !(e instanceof ResourceNotFoundException || e instanceof AIQueueFullException),
+                        e -> Mono.just(ServerSentEvent.builder(AIService.SUMMARY_UNAVAILABLE).event("error").build()));
+    }
 }
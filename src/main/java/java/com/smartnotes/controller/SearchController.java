@@ -0,0 +1,43 @@
+package java.com.smartnotes.controller;
+
+import java.com.smartnotes.dto.SearchResultDto;
+import java.com.smartnotes.search.SearchService;
+import java.com.smartnotes.search.SemanticSearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+@Tag(name = "Search", description = "APIs for searching notes and tasks")
+@SecurityRequirement(name = "bearerAuth")
+public class SearchController {
+
+    private final SearchService searchService;
+    private final SemanticSearchService semanticSearchService;
+
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Search notes and tasks", description = "Rank the user's notes (title, content, summary) and tasks (description) against the query with BM25")
+    public Flux<SearchResultDto> search(
+            @RequestParam String q,
+            @RequestParam(required = false, defaultValue = "20") int limit
+    ) {
+        return searchService.search(q, limit);
+    }
+
+    @GetMapping("/semantic")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Semantic search over notes", description = "Find the user's notes closest in meaning to a natural-language query, by embedding similarity")
+    public Flux<SearchResultDto> semanticSearch(
+            @RequestParam String q,
+            @RequestParam(required = false, defaultValue = "20") int limit
+    ) {
+        return semanticSearchService.search(q, limit);
+    }
+}
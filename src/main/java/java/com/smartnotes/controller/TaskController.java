@@ -2,6 +2,9 @@ package java.com.smartnotes.controller;
 
 import com.smartnotes.dto.CreateTaskRequest;
 import com.smartnotes.dto.TaskDto;
+import java.com.smartnotes.dto.PageResponse;
+import java.com.smartnotes.dto.PatchTaskRequest;
+import java.com.smartnotes.dto.TaskSort;
 import com.smartnotes.model.Task;
 import com.smartnotes.service.TaskService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -27,9 +30,23 @@ public class TaskController {
     @ResponseStatus(HttpStatus.OK)
     @Operation(summary = "Get all tasks", description = "Retrieve all tasks for the current user, optionally filtered by status")
     public Flux<TaskDto> getAllTasks(
-            @RequestParam(required = false) Task.TaskStatus status
+            @RequestParam(required = false) Task.TaskStatus status,
+            @RequestParam(required = false) String fields
     ) {
-        return taskService.getUserTasks(status);
+        return taskService.getUserTasks(status, fields);
+    }
+
+    @GetMapping("/page")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Get a page of tasks", description = "Retrieve tasks one page at a time, newest first or by due date. Pass the returned nextCursor to get the following page")
+    public Mono<PageResponse<TaskDto>> getTasksPage(
+            @RequestParam(required = false) Task.TaskStatus status,
+            @RequestParam(required = false, defaultValue = "CREATED_AT") TaskSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") int limit,
+            @RequestParam(required = false) String fields
+    ) {
+        return taskService.getUserTasksPage(status, sort, cursor, limit, fields);
     }
 
     @GetMapping("/{id}")
@@ -46,6 +63,16 @@ public class TaskController {
         return taskService.createTask(request);
     }
 
+    @PatchMapping("/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Partially update a task", description = "Update only the fields present in the request. Fails with 409 if the task has changed since the given version")
+    public Mono<TaskDto> patchTask(
+            @PathVariable String id,
+            @Valid @RequestBody PatchTaskRequest request
+    ) {
+        return taskService.patchTask(id, request);
+    }
+
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     @Operation(summary = "Update a task", description = "Update an existing task with the provided details")
@@ -0,0 +1,37 @@
+package java.com.smartnotes.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.com.smartnotes.model.AIJob;
+
+import java.time.LocalDateTime;
+
+public record AIJobDto(
+    String id,
+    AIJob.JobType type,
+    String noteId,
+    AIJob.JobStatus status,
+    int attempts,
+    Object result,
+    String error,
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime createdAt,
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime updatedAt,
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime completedAt
+) {
+    public static AIJobDto fromEntity(AIJob job) {
+        return new AIJobDto(
+            job.getId(),
+            job.getType(),
+            job.getNoteId(),
+            job.getStatus(),
+            job.getAttempts(),
+            job.getResult(),
+            job.getError(),
+            job.getCreatedAt(),
+            job.getUpdatedAt(),
+            job.getCompletedAt()
+        );
+    }
+}
@@ -0,0 +1,13 @@
+package java.com.smartnotes.dto;
+
+import java.com.smartnotes.model.AIJob;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public record CreateAIJobRequest(
+    @NotNull(message = "Job type is required")
+    AIJob.JobType type,
+
+    @NotBlank(message = "Note ID is required")
+    String noteId
+) {}
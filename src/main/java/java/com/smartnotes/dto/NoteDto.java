@@ -1,10 +1,14 @@
 package java.com.smartnotes.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.com.smartnotes.model.Note;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 
+// Null fields are omitted so sparse fieldset responses only carry what was asked for
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record NoteDto(
     String id,
     String title,
@@ -14,8 +18,11 @@ public record NoteDto(
     LocalDateTime createdAt,
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     LocalDateTime updatedAt,
-    boolean archived
+    Boolean archived,
+    Long version
 ) {
+    public static final Set<String> FIELDS = Set.of("id", "title", "content", "summary", "createdAt", "updatedAt", "archived", "version");
+
     public static NoteDto fromEntity(Note note) {
         return new NoteDto(
             note.getId(),
@@ -24,7 +31,27 @@ public record NoteDto(
             note.getSummary(),
             note.getCreatedAt(),
             note.getUpdatedAt(),
-            note.isArchived()
+            note.isArchived(),
+            note.getVersion()
+        );
+    }
+
+    /**
+     * Maps a note loaded with a field projection, leaving out anything not in {@code fields}.
+     */
+    public static NoteDto fromEntity(Note note, Set<String> fields) {
+        if (fields == null) {
+            return fromEntity(note);
+        }
+        return new NoteDto(
+            fields.contains("id") ? note.getId() : null,
+            fields.contains("title") ? note.getTitle() : null,
+            fields.contains("content") ? note.getContent() : null,
+            fields.contains("summary") ? note.getSummary() : null,
+            fields.contains("createdAt") ? note.getCreatedAt() : null,
+            fields.contains("updatedAt") ? note.getUpdatedAt() : null,
+            fields.contains("archived") ? note.isArchived() : null,
+            fields.contains("version") ? note.getVersion() : null
         );
     }
 }
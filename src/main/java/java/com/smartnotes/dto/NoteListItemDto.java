@@ -0,0 +1,21 @@
+package java.com.smartnotes.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Note as shown in list views: no body or summary, only a short preview of the content.
+ */
+public record NoteListItemDto(
+    String id,
+    String title,
+    String preview,
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime createdAt,
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime updatedAt,
+    boolean archived
+) {
+    public static final int PREVIEW_LENGTH = 160;
+}
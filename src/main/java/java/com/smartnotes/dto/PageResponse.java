@@ -0,0 +1,12 @@
+package java.com.smartnotes.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is opaque to clients
+ * and is null on the last page.
+ */
+public record PageResponse<T>(
+    List<T> items,
+    String nextCursor
+) {}
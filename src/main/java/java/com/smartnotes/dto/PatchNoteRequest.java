@@ -0,0 +1,20 @@
+package java.com.smartnotes.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Partial note update. Fields left null are not changed.
+ */
+public record PatchNoteRequest(
+    @NotNull(message = "Version is required")
+    Long version,
+    
+    @Size(min = 1, max = 200, message = "Title must be between 1 and 200 characters")
+    String title,
+    
+    @Size(min = 1, message = "Content must not be empty")
+    String content,
+    
+    Boolean archived
+) {}
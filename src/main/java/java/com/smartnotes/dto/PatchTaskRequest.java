@@ -0,0 +1,24 @@
+package java.com.smartnotes.dto;
+
+import java.com.smartnotes.model.Task;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * Partial task update. Fields left null are not changed.
+ */
+public record PatchTaskRequest(
+    @NotNull(message = "Version is required")
+    Long version,
+    
+    String noteId,
+    
+    @Size(min = 1, max = 1000, message = "Description must be between 1 and 1000 characters")
+    String description,
+    
+    LocalDateTime dueDate,
+    
+    Task.TaskStatus status
+) {}
@@ -0,0 +1,10 @@
+package java.com.smartnotes.dto;
+
+public record SearchResultDto(
+    // "note" or "task"
+    String type,
+    String id,
+    // Note title or task description
+    String title,
+    float score
+) {}
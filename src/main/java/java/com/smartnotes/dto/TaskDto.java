@@ -1,10 +1,14 @@
 package java.com.smartnotes.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.com.smartnotes.model.Task;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 
+// Null fields are omitted so sparse fieldset responses only carry what was asked for
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record TaskDto(
     String id,
     String noteId,
@@ -12,22 +16,46 @@ public record TaskDto(
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     LocalDateTime dueDate,
     Task.TaskStatus status,
-    boolean aiGenerated,
+    Boolean aiGenerated,
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     LocalDateTime createdAt,
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
-    LocalDateTime updatedAt
+    LocalDateTime updatedAt,
+    Long version
 ) {
+    public static final Set<String> FIELDS = Set.of("id", "noteId", "description", "dueDate", "status", "aiGenerated", "createdAt", "updatedAt", "version");
+
     public static TaskDto fromEntity(Task task) {
         return new TaskDto(
             task.getId(),
-            task.getNote() != null ? task.getNote().getId() : null,
+            task.getNoteId(),
             task.getDescription(),
             task.getDueDate(),
             task.getStatus(),
             task.isAiGenerated(),
             task.getCreatedAt(),
-            task.getUpdatedAt()
+            task.getUpdatedAt(),
+            task.getVersion()
+        );
+    }
+
+    /**
+     * Maps a task loaded with a field projection, leaving out anything not in {@code fields}.
+     */
+    public static TaskDto fromEntity(Task task, Set<String> fields) {
+        if (fields == null) {
+            return fromEntity(task);
+        }
+        return new TaskDto(
+            fields.contains("id") ? task.getId() : null,
+            fields.contains("noteId") ? task.getNoteId() : null,
+            fields.contains("description") ? task.getDescription() : null,
+            fields.contains("dueDate") ? task.getDueDate() : null,
+            fields.contains("status") ? task.getStatus() : null,
+            fields.contains("aiGenerated") ? task.isAiGenerated() : null,
+            fields.contains("createdAt") ? task.getCreatedAt() : null,
+            fields.contains("updatedAt") ? task.getUpdatedAt() : null,
+            fields.contains("version") ? task.getVersion() : null
         );
     }
 }
@@ -0,0 +1,8 @@
+package java.com.smartnotes.dto;
+
+public enum TaskSort {
+    // Newest first
+    CREATED_AT,
+    // Earliest due first, tasks without a due date before the rest
+    DUE_DATE
+}
@@ -0,0 +1,19 @@
+package java.com.smartnotes.exception;
+
+/**
+ * Thrown when the AI execution queue cannot accept more work. Mapped to
+ * 503 Service Unavailable with a Retry-After header.
+ */
+public class AIQueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AIQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,12 @@
+package java.com.smartnotes.exception;
+
+/**
+ * Thrown when the AI provider failed to produce a result, for callers that must not
+ * mistake the fallback message for real output. Mapped to 503 Service Unavailable.
+ */
+public class AIUnavailableException extends RuntimeException {
+
+    public AIUnavailableException(String message) {
+        super(message);
+    }
+}
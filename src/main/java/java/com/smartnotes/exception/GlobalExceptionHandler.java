@@ -1,5 +1,7 @@
 package java.com.smartnotes.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -11,6 +13,7 @@ import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -35,6 +38,31 @@ public class GlobalExceptionHandler {
         return createErrorResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public Mono<ResponseEntity<Map<String, String>>> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return createErrorResponse(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(AIQueueFullException.class)
+    public Mono<ResponseEntity<Map<String, String>>> handleAIQueueFullException(AIQueueFullException ex) {
+        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("error", ex.getMessage())));
+    }
+
+    @ExceptionHandler(AIUnavailableException.class)
+    public Mono<ResponseEntity<Map<String, String>>> handleAIUnavailableException(AIUnavailableException ex) {
+        return createErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
+    // A bounded worker pool (e.g. password hashing) is saturated
+    @ExceptionHandler(RejectedExecutionException.class)
+    public Mono<ResponseEntity<Map<String, String>>> handleRejectedExecutionException(RejectedExecutionException ex) {
+        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "Server is busy, please retry later")));
+    }
+
     @ExceptionHandler(WebExchangeBindException.class)
     public Mono<ResponseEntity<Map<String, String>>> handleWebExchangeBindException(WebExchangeBindException ex) {
         String errorMessage = ex.getBindingResult().getFieldErrors().stream()
@@ -0,0 +1,48 @@
+package java.com.smartnotes.migrations;
+
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import reactor.core.publisher.Mono;
+
+@ChangeUnit(id = "ai-jobs", order = "002", author = "system")
+public class AIJobsMigration {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public AIJobsMigration(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Execution
+    public void execute() {
+        mongoTemplate.collectionExists("ai_jobs")
+                .flatMap(exists -> exists ? Mono.empty() : mongoTemplate.createCollection("ai_jobs").then())
+                .block();
+
+        // Claiming queued jobs that are due
+        mongoTemplate.indexOps("ai_jobs").ensureIndex(
+                new CompoundIndexDefinition(new Document("status", 1).append("nextRunAt", 1))
+                        .named("jobsDue")
+        ).block();
+
+        // Reclaiming jobs whose lease has expired
+        mongoTemplate.indexOps("ai_jobs").ensureIndex(
+                new CompoundIndexDefinition(new Document("status", 1).append("leaseExpiresAt", 1))
+                        .named("jobsLeaseExpiry")
+        ).block();
+
+        mongoTemplate.indexOps("ai_jobs").ensureIndex(
+                new CompoundIndexDefinition(new Document("userId", 1).append("createdAt", -1))
+                        .named("userJobs")
+        ).block();
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        mongoTemplate.dropCollection("ai_jobs").block();
+    }
+}
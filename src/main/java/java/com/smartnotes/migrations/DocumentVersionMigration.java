@@ -0,0 +1,38 @@
+package java.com.smartnotes.migrations;
+
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Starts existing notes and tasks at version 0. Without it Spring Data would treat
+ * documents that have no version as new and try to insert them again on save.
+ */
+@ChangeUnit(id = "document-versions", order = "004", author = "system")
+public class DocumentVersionMigration {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public DocumentVersionMigration(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Execution
+    public void execute() {
+        Query unversioned = new Query(Criteria.where("version").exists(false));
+        Update initial = new Update().set("version", 0L);
+        mongoTemplate.updateMulti(unversioned, initial, "notes").block();
+        mongoTemplate.updateMulti(unversioned, initial, "tasks").block();
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        Update unset = new Update().unset("version");
+        mongoTemplate.updateMulti(new Query(), unset, "notes").block();
+        mongoTemplate.updateMulti(new Query(), unset, "tasks").block();
+    }
+}
@@ -50,10 +50,9 @@ public class InitialSetupMigration {
         mongoTemplate.collectionExists(collectionName)
                 .flatMap(exists -> {
                     if (!exists) {
+                        // Not capped: a capped collection silently drops its oldest documents once full
                         CollectionOptions options = CollectionOptions.empty()
-                                .validator(Validator.schema(schema))
-                                .size(1024 * 1024 * 10) // 10MB
-                                .maxDocuments(10000);
+                                .validator(Validator.schema(schema));
                         return mongoTemplate.createCollection(collectionName, options);
                     }
                     return Mono.empty();
@@ -0,0 +1,58 @@
+package java.com.smartnotes.migrations;
+
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+
+/**
+ * Appends _id to the listing indexes so keyset pages ordered by (sort field, _id)
+ * are read straight off the index, with no in-memory sort of the user's whole
+ * collection. The extended indexes keep their names and still serve every query
+ * the originals did.
+ */
+@ChangeUnit(id = "keyset-pagination-indexes", order = "003", author = "system")
+public class KeysetPaginationIndexesMigration {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public KeysetPaginationIndexesMigration(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Execution
+    public void execute() {
+        replaceIndex("notes", "userNotes",
+                new Document("user", 1).append("createdAt", -1).append("_id", -1));
+        replaceIndex("tasks", "userTasksByDueDate",
+                new Document("user", 1).append("dueDate", -1).append("_id", -1));
+        replaceIndex("tasks", "userTasksByStatusAndDueDate",
+                new Document("user", 1).append("status", 1).append("dueDate", 1).append("_id", 1));
+
+        mongoTemplate.indexOps("tasks").ensureIndex(
+                new CompoundIndexDefinition(new Document("user", 1).append("createdAt", -1).append("_id", -1))
+                        .named("userTasksByCreatedAt")
+        ).block();
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        mongoTemplate.indexOps("tasks").dropIndex("userTasksByCreatedAt").onErrorComplete().block();
+        replaceIndex("notes", "userNotes",
+                new Document("user", 1).append("createdAt", -1));
+        replaceIndex("tasks", "userTasksByDueDate",
+                new Document("user", 1).append("dueDate", -1));
+        replaceIndex("tasks", "userTasksByStatusAndDueDate",
+                new Document("user", 1).append("status", 1).append("dueDate", 1));
+    }
+
+    private void replaceIndex(String collectionName, String indexName, Document keys) {
+        mongoTemplate.indexOps(collectionName).dropIndex(indexName)
+                .onErrorComplete()
+                .then(mongoTemplate.indexOps(collectionName).ensureIndex(
+                        new CompoundIndexDefinition(keys).named(indexName)))
+                .block();
+    }
+}
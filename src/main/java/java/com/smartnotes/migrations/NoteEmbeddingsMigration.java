@@ -0,0 +1,40 @@
+package java.com.smartnotes.migrations;
+
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import reactor.core.publisher.Mono;
+
+/**
+ * Creates the note_embeddings collection. Semantic search loads a user's vectors in
+ * one query when it builds their index, so embeddings are indexed by owner.
+ */
+@ChangeUnit(id = "note-embeddings", order = "005", author = "system")
+public class NoteEmbeddingsMigration {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public NoteEmbeddingsMigration(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Execution
+    public void execute() {
+        mongoTemplate.collectionExists("note_embeddings")
+                .flatMap(exists -> exists ? Mono.empty() : mongoTemplate.createCollection("note_embeddings").then())
+                .block();
+
+        mongoTemplate.indexOps("note_embeddings").ensureIndex(
+                new CompoundIndexDefinition(new Document("user", 1))
+                        .named("userEmbeddings")
+        ).block();
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        mongoTemplate.dropCollection("note_embeddings").block();
+    }
+}
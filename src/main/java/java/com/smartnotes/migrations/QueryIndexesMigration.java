@@ -0,0 +1,40 @@
+package java.com.smartnotes.migrations;
+
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Indexes for repository queries that had none and were answered by filtering every
+ * task of the user. Kept in step with QueryPlanRegressionTest, which fails on any
+ * repository query that scans the collection or reads far more documents than it returns.
+ */
+@ChangeUnit(id = "query-plan-indexes", order = "007", author = "system")
+public class QueryIndexesMigration {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public QueryIndexesMigration(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Execution
+    public void execute() {
+        // TaskRepository.findByUserIdAndAiGeneratedTrue; partial, so manual tasks take no space
+        mongoTemplate.indexOps("tasks").ensureIndex(
+                new CompoundIndexDefinition(new Document("user", 1).append("createdAt", -1))
+                        .partial(PartialIndexFilter.of(Criteria.where("aiGenerated").is(true)))
+                        .named("userAiGeneratedTasks")
+        ).block();
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        mongoTemplate.indexOps("tasks").dropIndex("userAiGeneratedTasks").onErrorComplete().block();
+    }
+}
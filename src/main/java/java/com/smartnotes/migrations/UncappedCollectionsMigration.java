@@ -0,0 +1,381 @@
+package java.com.smartnotes.migrations;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoNamespace;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneOptions;
+import com.mongodb.client.model.RenameCollectionOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.ValidationAction;
+import com.mongodb.client.model.ValidationLevel;
+import com.mongodb.client.model.ValidationOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Replaces the capped users, notes and tasks collections created by earlier versions
+ * of {@link InitialSetupMigration} with ordinary collections. Capped collections
+ * silently drop their oldest documents once full.
+ * <p>
+ * Each collection is copied into {@code <name>_uncapped} in _id order, one batch at a
+ * time, while the application keeps writing to the original. Progress is checkpointed
+ * in {@code migration_checkpoints}, so a failed or interrupted run resumes where it
+ * stopped. Writes made during the copy are caught up from a change stream by copying
+ * every document it reports as touched again. The original is then renamed to
+ * {@code <name>_capped}, writes that reached it after the last catch-up are copied,
+ * and the new collection takes the original name. The capped original is kept for
+ * inspection and can be dropped once the conversion has been checked.
+ * <p>
+ * Change streams need a replica set, which transactions already require, and the
+ * oplog must cover the time a copy takes.
+ */
+@Slf4j
+@ChangeUnit(id = "uncapped-collections", order = "006", author = "system")
+public class UncappedCollectionsMigration {
+
+    private static final List<String> COLLECTIONS = List.of("users", "notes", "tasks");
+    private static final String CHECKPOINTS = "migration_checkpoints";
+    private static final String UNCAPPED_SUFFIX = "_uncapped";
+    private static final String CAPPED_SUFFIX = "_capped";
+    private static final int BATCH_SIZE = 1000;
+    // Catch-up passes are repeated until the writes left over fit in one batch
+    private static final int MAX_CATCH_UP_PASSES = 10;
+
+    enum Phase {
+        COPYING,
+        CATCHING_UP,
+        SWAPPING,
+        DONE
+    }
+
+    private final MongoDatabase mongoDatabase;
+
+    public UncappedCollectionsMigration(MongoDatabase mongoDatabase) {
+        this.mongoDatabase = mongoDatabase;
+    }
+
+    @Execution
+    public void execute() {
+        for (String name : COLLECTIONS) {
+            uncap(name);
+        }
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        // Nothing to undo: the original is only replaced once its copy is complete, and
+        // partial copies and checkpoints are kept so the next run resumes from them
+    }
+
+    private void uncap(String name) {
+        Document checkpoint = checkpoint(name);
+        if (checkpoint == null) {
+            Document info = collectionInfo(name);
+            if (info == null || !info.get("options", new Document()).getBoolean("capped", false)) {
+                // New installations, and collections that were never capped
+                return;
+            }
+            checkpoint = start(name, info);
+        }
+
+        Phase phase = Phase.valueOf(checkpoint.getString("phase"));
+        if (phase == Phase.COPYING) {
+            copy(name, checkpoint.get("lastId"));
+            copyIndexes(name);
+            phase = advance(name, Phase.CATCHING_UP);
+        }
+        if (phase == Phase.CATCHING_UP) {
+            catchUp(name);
+            phase = advance(name, Phase.SWAPPING);
+        }
+        if (phase == Phase.SWAPPING) {
+            swap(name);
+            advance(name, Phase.DONE);
+            log.info("Collection {} is no longer capped; the original is kept as {}", name, name + CAPPED_SUFFIX);
+        }
+    }
+
+    private Document start(String name, Document info) {
+        // Taken before the first read, so every write the copy might miss is in the change stream after it
+        BsonTimestamp startedAt = clusterTime();
+
+        Document options = info.get("options", new Document());
+        ValidationOptions validation = new ValidationOptions();
+        if (options.containsKey("validator")) {
+            validation.validator(options.get("validator", Document.class));
+        }
+        if (options.containsKey("validationLevel")) {
+            validation.validationLevel(ValidationLevel.fromString(options.getString("validationLevel")));
+        }
+        if (options.containsKey("validationAction")) {
+            validation.validationAction(ValidationAction.fromString(options.getString("validationAction")));
+        }
+        if (collectionInfo(name + UNCAPPED_SUFFIX) == null) {
+            Mono.from(mongoDatabase.createCollection(name + UNCAPPED_SUFFIX,
+                    new CreateCollectionOptions().validationOptions(validation))).block();
+        }
+
+        Document checkpoint = new Document("_id", checkpointId(name))
+                .append("phase", Phase.COPYING.name())
+                .append("resumeAt", startedAt)
+                .append("lastId", null);
+        Mono.from(checkpoints().insertOne(checkpoint)).block();
+        log.info("Converting capped collection {}", name);
+        return checkpoint;
+    }
+
+    private void copy(String name, Object lastId) {
+        MongoCollection<Document> source = mongoDatabase.getCollection(name);
+        long copied = 0;
+        while (true) {
+            Document filter = lastId != null ? new Document("_id", new Document("$gt", lastId)) : new Document();
+            List<Document> batch = Flux.from(source.find(filter).sort(Sorts.ascending("_id")).limit(BATCH_SIZE))
+                    .collectList()
+                    .block();
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            upsertAll(name + UNCAPPED_SUFFIX, batch);
+            lastId = batch.get(batch.size() - 1).get("_id");
+            Mono.from(checkpoints().updateOne(Filters.eq("_id", checkpointId(name)), Updates.set("lastId", lastId))).block();
+            copied += batch.size();
+        }
+        log.info("Copied {} documents from {}", copied, name);
+    }
+
+    // Index builds are cheaper once than on every batch, so they follow the bulk copy
+    private void copyIndexes(String name) {
+        List<Document> indexes = Flux.from(mongoDatabase.getCollection(name).listIndexes())
+                .filter(index -> !"_id_".equals(index.getString("name")))
+                .map(index -> {
+                    Document spec = new Document(index);
+                    spec.remove("v");
+                    spec.remove("ns");
+                    return spec;
+                })
+                .collectList()
+                .block();
+        if (indexes != null && !indexes.isEmpty()) {
+            Mono.from(mongoDatabase.runCommand(new Document("createIndexes", name + UNCAPPED_SUFFIX)
+                    .append("indexes", indexes))).block();
+        }
+    }
+
+    private void catchUp(String name) {
+        for (int pass = 1; pass <= MAX_CATCH_UP_PASSES; pass++) {
+            BsonTimestamp from = checkpoint(name).get("resumeAt", BsonTimestamp.class);
+            String marker = UUID.randomUUID().toString();
+            Mono.from(checkpoints().updateOne(Filters.eq("_id", checkpointId(name)), Updates.set("marker", marker))).block();
+
+            ChangeScan scan = scan(name, from, event -> isMarker(event, name, marker));
+            recopy(name, name + UNCAPPED_SUFFIX, scan.changes);
+            setResumeAt(name, scan.until);
+            log.info("Catch-up pass {} on {} copied {} changed documents", pass, name, scan.changes.size());
+            if (scan.changes.size() <= BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves the original aside, copies the writes it received since the last catch-up,
+     * then renames the copy into place. Each step checks whether it already happened,
+     * so a run interrupted here picks up at the right point.
+     */
+    private void swap(String name) {
+        String uncapped = name + UNCAPPED_SUFFIX;
+        String capped = name + CAPPED_SUFFIX;
+        Document checkpoint = checkpoint(name);
+
+        if (collectionInfo(capped) == null) {
+            rename(name, capped, false);
+        }
+        // Once moved aside the original takes no more writes, so this scan ends at its rename
+        if (!checkpoint.getBoolean("reconciled", false)) {
+            ChangeScan scan = scan(name, checkpoint.get("resumeAt", BsonTimestamp.class),
+                    event -> isRename(event, name));
+            String target = collectionInfo(uncapped) != null ? uncapped : name;
+            recopy(capped, target, scan.changes);
+            setResumeAt(name, scan.until);
+            Mono.from(checkpoints().updateOne(Filters.eq("_id", checkpointId(name)), Updates.set("reconciled", true))).block();
+        }
+
+        if (collectionInfo(uncapped) != null) {
+            // Anything written to the name in between went to an implicitly created
+            // collection, which this drops; its inserts are recovered below
+            rename(uncapped, name, true);
+        }
+        recoverGapInserts(name, checkpoint(name).get("resumeAt", BsonTimestamp.class));
+    }
+
+    // Documents inserted under the collection's name while neither collection held it
+    private void recoverGapInserts(String name, BsonTimestamp from) {
+        ChangeScan scan = scan(name, from, event -> isRename(event, name + UNCAPPED_SUFFIX));
+        MongoCollection<Document> target = mongoDatabase.getCollection(name);
+        int recovered = 0;
+        for (ChangeStreamDocument<Document> event : scan.events) {
+            if (event.getOperationType() != OperationType.INSERT || event.getFullDocument() == null) {
+                continue;
+            }
+            try {
+                Mono.from(target.insertOne(event.getFullDocument(), new InsertOneOptions().bypassDocumentValidation(true))).block();
+                recovered++;
+            } catch (MongoWriteException e) {
+                if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+                // Newer writes to the document have already reached the new collection
+                log.warn("Not restoring {} in {}: it was written again after the swap", event.getDocumentKey(), name);
+            }
+        }
+        if (recovered > 0) {
+            log.info("Recovered {} documents written to {} during the swap", recovered, name);
+        }
+    }
+
+    /**
+     * Events on the collection since {@code from}, up to and including the first event
+     * matching {@code end}. Changes are keyed by document id, the last operation winning.
+     */
+    private ChangeScan scan(String name, BsonTimestamp from, Predicate<ChangeStreamDocument<Document>> end) {
+        ChangeScan scan = new ChangeScan();
+        Flux.from(mongoDatabase.watch(List.of(Aggregates.match(Filters.in("ns.coll", name, name + UNCAPPED_SUFFIX, CHECKPOINTS))))
+                        .startAtOperationTime(from))
+                .takeUntil(end)
+                .doOnNext(event -> {
+                    scan.until = event.getClusterTime();
+                    if (event.getNamespace() == null || !name.equals(event.getNamespace().getCollectionName())
+                            || event.getDocumentKey() == null) {
+                        return;
+                    }
+                    scan.events.add(event);
+                    scan.changes.put(event.getDocumentKey().get("_id"), event.getOperationType() == OperationType.DELETE);
+                })
+                .blockLast();
+        return scan;
+    }
+
+    /**
+     * Copies the current version of each changed document again. Documents that were
+     * deleted are deleted from the target; documents that are merely gone, i.e. evicted
+     * by the cap, are kept.
+     */
+    private void recopy(String source, String target, Map<BsonValue, Boolean> changes) {
+        List<BsonValue> ids = new ArrayList<>(changes.keySet());
+        for (int start = 0; start < ids.size(); start += BATCH_SIZE) {
+            List<BsonValue> chunk = ids.subList(start, Math.min(start + BATCH_SIZE, ids.size()));
+            List<BsonValue> deleted = chunk.stream().filter(changes::get).toList();
+            List<BsonValue> changed = chunk.stream().filter(id -> !changes.get(id)).toList();
+            if (!deleted.isEmpty()) {
+                Mono.from(mongoDatabase.getCollection(target).deleteMany(Filters.in("_id", deleted))).block();
+            }
+            if (!changed.isEmpty()) {
+                List<Document> current = Flux.from(mongoDatabase.getCollection(source).find(Filters.in("_id", changed)))
+                        .collectList()
+                        .block();
+                upsertAll(target, current);
+            }
+        }
+    }
+
+    // Copied as is: documents written before the current validators must not fail the migration
+    private void upsertAll(String collection, List<Document> documents) {
+        if (documents == null || documents.isEmpty()) {
+            return;
+        }
+        List<ReplaceOneModel<Document>> writes = documents.stream()
+                .map(document -> new ReplaceOneModel<>(Filters.eq("_id", document.get("_id")), document,
+                        new ReplaceOptions().upsert(true)))
+                .toList();
+        Mono.from(mongoDatabase.getCollection(collection).bulkWrite(writes,
+                new BulkWriteOptions().ordered(false).bypassDocumentValidation(true))).block();
+    }
+
+    private void rename(String from, String to, boolean dropTarget) {
+        Mono.from(mongoDatabase.getCollection(from).renameCollection(
+                new MongoNamespace(mongoDatabase.getName(), to),
+                new RenameCollectionOptions().dropTarget(dropTarget))).block();
+    }
+
+    private boolean isMarker(ChangeStreamDocument<Document> event, String name, String marker) {
+        return event.getNamespace() != null
+                && CHECKPOINTS.equals(event.getNamespace().getCollectionName())
+                && event.getUpdateDescription() != null
+                && event.getDocumentKey().getString("_id").getValue().equals(checkpointId(name))
+                && event.getUpdateDescription().getUpdatedFields().containsKey("marker")
+                && marker.equals(event.getUpdateDescription().getUpdatedFields().getString("marker").getValue());
+    }
+
+    private static boolean isRename(ChangeStreamDocument<Document> event, String collection) {
+        return event.getOperationType() == OperationType.RENAME
+                && event.getNamespace() != null
+                && collection.equals(event.getNamespace().getCollectionName());
+    }
+
+    private BsonTimestamp clusterTime() {
+        Document reply = Mono.from(mongoDatabase.runCommand(new Document("ping", 1))).block();
+        BsonTimestamp operationTime = reply != null ? reply.get("operationTime", BsonTimestamp.class) : null;
+        if (operationTime == null) {
+            throw new IllegalStateException("Converting capped collections needs a replica set");
+        }
+        return operationTime;
+    }
+
+    private Phase advance(String name, Phase phase) {
+        Mono.from(checkpoints().updateOne(Filters.eq("_id", checkpointId(name)), Updates.set("phase", phase.name()))).block();
+        return phase;
+    }
+
+    private void setResumeAt(String name, BsonTimestamp resumeAt) {
+        if (resumeAt != null) {
+            Mono.from(checkpoints().updateOne(Filters.eq("_id", checkpointId(name)), Updates.set("resumeAt", resumeAt))).block();
+        }
+    }
+
+    private Document checkpoint(String name) {
+        return Mono.from(checkpoints().find(Filters.eq("_id", checkpointId(name))).first()).block();
+    }
+
+    private Document collectionInfo(String name) {
+        return Mono.from(mongoDatabase.listCollections().filter(Filters.eq("name", name)).first()).block();
+    }
+
+    private MongoCollection<Document> checkpoints() {
+        return mongoDatabase.getCollection(CHECKPOINTS);
+    }
+
+    private static String checkpointId(String name) {
+        return "uncapped-collections:" + name;
+    }
+
+    private static final class ChangeScan {
+        private final Map<BsonValue, Boolean> changes = new LinkedHashMap<>();
+        private final List<ChangeStreamDocument<Document>> events = new ArrayList<>();
+        private BsonTimestamp until;
+    }
+}
@@ -0,0 +1,61 @@
+package java.com.smartnotes.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "ai_jobs")
+public class AIJob {
+
+    @Id
+    private String id;
+
+    private String userId;
+    // Principal the job runs as, so it goes through the same services as an HTTP request
+    private String userEmail;
+    private String noteId;
+    private JobType type;
+    private JobStatus status;
+
+    private int attempts;
+    private int maxAttempts;
+    private LocalDateTime nextRunAt;
+
+    // Worker currently holding the job and until when; an expired lease makes it claimable again
+    private String leaseOwner;
+    private LocalDateTime leaseExpiresAt;
+
+    private Object result;
+    private String error;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+
+    public enum JobType {
+        SUMMARIZE,
+        GENERATE_TASKS
+    }
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+}
@@ -7,10 +7,13 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DocumentReference;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Data
 @Builder
@@ -22,19 +25,30 @@ public class Note {
     @Id
     private String id;
     
-    @DocumentReference
-    private User user;
+    // Stored as the owner's ObjectId; the User document is never loaded with the note
+    @Field(name = "user", targetType = FieldType.OBJECT_ID)
+    private String userId;
     
     private String title;
     private String content;
     private String summary;
     
+    // Fingerprint of the content, model and prompt parameters the summary was generated from
+    private String summaryFingerprint;
+    private String summaryModel;
+    // Summaries of the individual chunks of a long note, keyed by chunk fingerprint
+    private Map<String, String> chunkSummaries;
+    
     @CreatedDate
     private LocalDateTime createdAt;
     
     @LastModifiedDate
     private LocalDateTime updatedAt;
     
+    // Bumped on every write; PATCH requests must send the version they were based on
+    @Version
+    private Long version;
+    
     @Builder.Default
     private boolean archived = false;
     
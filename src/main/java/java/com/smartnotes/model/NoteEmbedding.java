@@ -0,0 +1,37 @@
+package java.com.smartnotes.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "note_embeddings")
+public class NoteEmbedding {
+
+    // The note's id; a note has at most one embedding
+    @Id
+    private String id;
+
+    @Field(name = "user", targetType = FieldType.OBJECT_ID)
+    private String userId;
+
+    // Kept so search results can be shown without loading the notes
+    private String title;
+
+    // Fingerprint of the embedded text; the note is only re-embedded when it changes
+    private String contentHash;
+    private String model;
+    private float[] vector;
+
+    private LocalDateTime updatedAt;
+}
@@ -7,8 +7,10 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DocumentReference;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.time.LocalDateTime;
 
@@ -22,11 +24,13 @@ public class Task {
     @Id
     private String id;
     
-    @DocumentReference
-    private User user;
+    // References are stored as ObjectIds and mapped id-only, so listing tasks
+    // does not load the owning user or the linked note for every row
+    @Field(name = "user", targetType = FieldType.OBJECT_ID)
+    private String userId;
     
-    @DocumentReference
-    private Note note; // Optional: Link to the note this task was generated from
+    @Field(name = "note", targetType = FieldType.OBJECT_ID)
+    private String noteId; // Optional: Link to the note this task was generated from
     
     private String description;
     private LocalDateTime dueDate;
@@ -39,6 +43,10 @@ public class Task {
     @LastModifiedDate
     private LocalDateTime updatedAt;
     
+    // Bumped on every write; PATCH requests must send the version they were based on
+    @Version
+    private Long version;
+    
     public enum TaskStatus {
         TODO,
         IN_PROGRESS,
@@ -0,0 +1,11 @@
+package java.com.smartnotes.repository;
+
+import java.com.smartnotes.model.AIJob;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface AIJobRepository extends ReactiveMongoRepository<AIJob, String> {
+    Mono<AIJob> findByIdAndUserId(String id, String userId);
+}
@@ -0,0 +1,11 @@
+package java.com.smartnotes.repository;
+
+import java.com.smartnotes.model.NoteEmbedding;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface NoteEmbeddingRepository extends ReactiveMongoRepository<NoteEmbedding, String> {
+    Flux<NoteEmbedding> findByUserId(String userId);
+}
@@ -1,17 +1,22 @@
 package java.com.smartnotes.repository;
 
 import com.smartnotes.model.Note;
-import com.smartnotes.model.User;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface NoteRepository extends ReactiveMongoRepository<Note, String> {
-    Flux<Note> findByUserAndArchivedFalseAndDeletedFalse(User user);
-    Flux<Note> findByUserAndArchivedTrueAndDeletedFalse(User user);
-    Mono<Note> findByIdAndUser(String id, User user);
-    Mono<Boolean> existsByIdAndUser(String id, User user);
-    Mono<Long> countByUser(User user);
+public interface NoteRepository extends ReactiveMongoRepository<Note, String>, NoteRepositoryCustom {
+    Flux<Note> findByUserIdAndDeletedFalse(String userId);
+    Flux<Note> findByUserIdAndArchivedFalseAndDeletedFalse(String userId);
+    Flux<Note> findByUserIdAndArchivedTrueAndDeletedFalse(String userId);
+    Mono<Note> findByIdAndUserId(String id, String userId);
+    Mono<Boolean> existsByIdAndUserId(String id, String userId);
+    Mono<Long> countByUserId(String userId);
+    Mono<Long> countByUserIdAndDeletedFalse(String userId);
+    // Ids only, for telling deleted notes apart without loading them
+    @Query(fields = "{ '_id': 1 }")
+    Flux<Note> findIdsByUserIdAndDeletedTrue(String userId);
 }
@@ -0,0 +1,55 @@
+package java.com.smartnotes.repository;
+
+import com.smartnotes.model.Note;
+import com.smartnotes.model.User;
+import java.com.smartnotes.dto.NoteListItemDto;
+import java.com.smartnotes.util.PageCursor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Set;
+
+public interface NoteRepositoryCustom {
+    /**
+     * Notes ordered newest first by (createdAt, _id), starting after {@code after} when given.
+     *
+     * @param fields NoteDto fields to load, or null for the whole document
+     */
+    Flux<Note> findPage(User user, boolean includeArchived, PageCursor after, int limit, Set<String> fields);
+
+    /**
+     * All of the user's live notes, loading only the given NoteDto fields.
+     */
+    Flux<Note> findForListing(User user, boolean includeArchived, Set<String> fields);
+
+    /**
+     * List view projection computed by the database, so note bodies never leave Mongo.
+     */
+    Flux<NoteListItemDto> findListItems(User user, boolean includeArchived, int previewLength);
+
+    /**
+     * Sets the archived flag in a single findAndModify and returns the updated note,
+     * or empty if the user has no such note.
+     */
+    Mono<Note> updateArchived(String id, String userId, boolean archived);
+
+    /**
+     * Soft deletes the note in a single update. Emits false if the user has no such note.
+     */
+    Mono<Boolean> markDeleted(String id, String userId);
+
+    /**
+     * Sets only {@code changes} and bumps the version, provided the note is still at
+     * {@code expectedVersion}. Emits the updated note, or empty if it has moved on.
+     */
+    Mono<Note> updateFields(String id, String userId, long expectedVersion, Map<String, Object> changes);
+
+    /**
+     * Sets only the summary fields of {@code note}, provided the stored content is still
+     * the content in {@code note}, i.e. the text that was summarized. Edits to other
+     * fields made meanwhile are kept, and the version is left alone so they do not
+     * conflict. Emits the updated note, or empty if the content has changed since.
+     */
+    Mono<Note> updateSummary(Note note);
+}
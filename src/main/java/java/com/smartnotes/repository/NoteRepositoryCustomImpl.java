@@ -0,0 +1,134 @@
+package java.com.smartnotes.repository;
+
+import com.smartnotes.model.Note;
+import com.smartnotes.model.User;
+import java.com.smartnotes.dto.NoteListItemDto;
+import java.com.smartnotes.util.PageCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class NoteRepositoryCustomImpl implements NoteRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Flux<Note> findPage(User user, boolean includeArchived, PageCursor after, int limit, Set<String> fields) {
+        Criteria criteria = liveNotes(user, includeArchived);
+        if (after != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").lt(after.sortValue()),
+                    Criteria.where("createdAt").is(after.sortValue()).and("_id").lt(after.id())
+            );
+        }
+
+        // Served in index order by userNotes (user, createdAt, _id)
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(limit);
+        // The cursor is built from createdAt, so it is loaded even if the caller did not ask for it
+        include(query, fields, "createdAt");
+        return mongoTemplate.find(query, Note.class);
+    }
+
+    @Override
+    public Flux<Note> findForListing(User user, boolean includeArchived, Set<String> fields) {
+        Query query = new Query(liveNotes(user, includeArchived));
+        include(query, fields);
+        return mongoTemplate.find(query, Note.class);
+    }
+
+    @Override
+    public Flux<NoteListItemDto> findListItems(User user, boolean includeArchived, int previewLength) {
+        TypedAggregation<Note> aggregation = Aggregation.newAggregation(Note.class,
+                Aggregation.match(liveNotes(user, includeArchived)),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "createdAt", "_id")),
+                Aggregation.project("title", "createdAt", "updatedAt", "archived")
+                        .and(StringOperators.valueOf("content").substringCP(0, previewLength)).as("preview")
+        );
+        return mongoTemplate.aggregate(aggregation, NoteListItemDto.class);
+    }
+
+    @Override
+    public Mono<Note> updateArchived(String id, String userId, boolean archived) {
+        Update update = new Update()
+                .set("archived", archived)
+                .set("updatedAt", LocalDateTime.now())
+                .inc("version", 1);
+        return mongoTemplate.findAndModify(ownedNote(id, userId), update,
+                FindAndModifyOptions.options().returnNew(true), Note.class);
+    }
+
+    @Override
+    public Mono<Boolean> markDeleted(String id, String userId) {
+        Update update = new Update()
+                .set("deleted", true)
+                .set("updatedAt", LocalDateTime.now())
+                .inc("version", 1);
+        return mongoTemplate.updateFirst(ownedNote(id, userId), update, Note.class)
+                .map(result -> result.getMatchedCount() > 0);
+    }
+
+    @Override
+    public Mono<Note> updateFields(String id, String userId, long expectedVersion, Map<String, Object> changes) {
+        Query query = ownedNote(id, userId).addCriteria(Criteria.where("version").is(expectedVersion));
+        Update update = new Update()
+                .set("updatedAt", LocalDateTime.now())
+                .inc("version", 1);
+        changes.forEach(update::set);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Note.class);
+    }
+
+    @Override
+    public Mono<Note> updateSummary(Note note) {
+        Query query = ownedNote(note.getId(), note.getUserId())
+                .addCriteria(Criteria.where("content").is(note.getContent()));
+        Update update = new Update()
+                .set("summary", note.getSummary())
+                .set("summaryFingerprint", note.getSummaryFingerprint())
+                .set("summaryModel", note.getSummaryModel())
+                .set("chunkSummaries", note.getChunkSummaries());
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Note.class);
+    }
+
+    private Query ownedNote(String id, String userId) {
+        return new Query(Criteria.where("_id").is(id).and("userId").is(userId));
+    }
+
+    private Criteria liveNotes(User user, boolean includeArchived) {
+        Criteria criteria = Criteria.where("userId").is(user.getId()).and("deleted").is(false);
+        if (!includeArchived) {
+            criteria = criteria.and("archived").is(false);
+        }
+        return criteria;
+    }
+
+    // NoteDto field names match the document's, and _id is always returned
+    private void include(Query query, Set<String> fields, String... required) {
+        if (fields == null) {
+            return;
+        }
+        // Explicit so that fields=id alone still gets a projection
+        query.fields().include("_id");
+        fields.stream()
+                .filter(field -> !field.equals("id"))
+                .forEach(field -> query.fields().include(field));
+        for (String field : required) {
+            query.fields().include(field);
+        }
+    }
+}
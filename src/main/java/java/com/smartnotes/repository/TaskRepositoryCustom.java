@@ -0,0 +1,37 @@
+package java.com.smartnotes.repository;
+
+import com.smartnotes.model.Task;
+import com.smartnotes.model.User;
+import java.com.smartnotes.dto.TaskSort;
+import java.com.smartnotes.util.PageCursor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Set;
+
+public interface TaskRepositoryCustom {
+    /**
+     * Tasks in {@code sort} order with _id as tie-breaker, starting after {@code after} when given.
+     *
+     * @param fields TaskDto fields to load, or null for the whole document
+     */
+    Flux<Task> findPage(User user, Task.TaskStatus status, TaskSort sort, PageCursor after, int limit, Set<String> fields);
+
+    /**
+     * All of the user's tasks, optionally filtered by status, loading only the given TaskDto fields.
+     */
+    Flux<Task> findForListing(User user, Task.TaskStatus status, Set<String> fields);
+
+    /**
+     * Sets the status in a single findAndModify and returns the updated task,
+     * or empty if the user has no such task.
+     */
+    Mono<Task> updateStatus(String id, String userId, Task.TaskStatus status);
+
+    /**
+     * Sets only {@code changes} and bumps the version, provided the task is still at
+     * {@code expectedVersion}. Emits the updated task, or empty if it has moved on.
+     */
+    Mono<Task> updateFields(String id, String userId, long expectedVersion, Map<String, Object> changes);
+}
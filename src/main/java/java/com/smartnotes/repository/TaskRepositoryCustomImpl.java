@@ -0,0 +1,119 @@
+package java.com.smartnotes.repository;
+
+import com.smartnotes.model.Task;
+import com.smartnotes.model.User;
+import java.com.smartnotes.dto.TaskSort;
+import java.com.smartnotes.util.PageCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Flux<Task> findPage(User user, Task.TaskStatus status, TaskSort sort, PageCursor after, int limit, Set<String> fields) {
+        Criteria criteria = userTasks(user, status);
+
+        Query query;
+        if (sort == TaskSort.DUE_DATE) {
+            if (after != null) {
+                criteria = criteria.orOperator(afterDueDate(after));
+            }
+            // userTasksByDueDate / userTasksByStatusAndDueDate, nulls sort first
+            query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "dueDate", "_id"));
+            include(query, fields, "dueDate");
+        } else {
+            if (after != null) {
+                criteria = criteria.orOperator(
+                        Criteria.where("createdAt").lt(after.sortValue()),
+                        Criteria.where("createdAt").is(after.sortValue()).and("_id").lt(after.id())
+                );
+            }
+            // userTasksByCreatedAt
+            query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"));
+            include(query, fields, "createdAt");
+        }
+
+        return mongoTemplate.find(query.limit(limit), Task.class);
+    }
+
+    @Override
+    public Flux<Task> findForListing(User user, Task.TaskStatus status, Set<String> fields) {
+        Query query = new Query(userTasks(user, status));
+        include(query, fields);
+        return mongoTemplate.find(query, Task.class);
+    }
+
+    @Override
+    public Mono<Task> updateStatus(String id, String userId, Task.TaskStatus status) {
+        Update update = new Update()
+                .set("status", status)
+                .set("updatedAt", LocalDateTime.now())
+                .inc("version", 1);
+        return mongoTemplate.findAndModify(ownedTask(id, userId), update, FindAndModifyOptions.options().returnNew(true), Task.class);
+    }
+
+    @Override
+    public Mono<Task> updateFields(String id, String userId, long expectedVersion, Map<String, Object> changes) {
+        Query query = ownedTask(id, userId).addCriteria(Criteria.where("version").is(expectedVersion));
+        Update update = new Update()
+                .set("updatedAt", LocalDateTime.now())
+                .inc("version", 1);
+        changes.forEach(update::set);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Task.class);
+    }
+
+    private Query ownedTask(String id, String userId) {
+        return new Query(Criteria.where("_id").is(id).and("userId").is(userId));
+    }
+
+    private Criteria userTasks(User user, Task.TaskStatus status) {
+        Criteria criteria = Criteria.where("userId").is(user.getId());
+        if (status != null) {
+            criteria = criteria.and("status").is(status);
+        }
+        return criteria;
+    }
+
+    private Criteria[] afterDueDate(PageCursor after) {
+        if (after.sortValue() == null) {
+            // Still inside the tasks without a due date, or past them
+            return new Criteria[] {
+                    Criteria.where("dueDate").is(null).and("_id").gt(after.id()),
+                    Criteria.where("dueDate").ne(null)
+            };
+        }
+        return new Criteria[] {
+                Criteria.where("dueDate").gt(after.sortValue()),
+                Criteria.where("dueDate").is(after.sortValue()).and("_id").gt(after.id())
+        };
+    }
+
+    // TaskDto field names match the entity's, and _id is always returned
+    private void include(Query query, Set<String> fields, String... required) {
+        if (fields == null) {
+            return;
+        }
+        // Explicit so that fields=id alone still gets a projection
+        query.fields().include("_id");
+        fields.stream()
+                .filter(field -> !field.equals("id"))
+                .forEach(field -> query.fields().include(field));
+        for (String field : required) {
+            query.fields().include(field);
+        }
+    }
+}
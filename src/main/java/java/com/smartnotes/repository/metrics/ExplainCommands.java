@@ -0,0 +1,88 @@
+package java.com.smartnotes.repository.metrics;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+
+import java.util.Set;
+
+/**
+ * Turns a command the driver sent into an {@code explain} of it, for the slow query
+ * log and the query plan tests.
+ */
+public final class ExplainCommands {
+
+    // Commands that carry a filter and can be explained
+    private static final Set<String> EXPLAINABLE = Set.of("find", "aggregate", "count", "distinct", "findAndModify", "update", "delete");
+    // Session, transaction, routing and API version fields that explain does not accept
+    private static final Set<String> ENVELOPE = Set.of("$db", "lsid", "$clusterTime", "txnNumber", "autocommit",
+            "startTransaction", "$readPreference", "readConcern", "writeConcern", "apiVersion", "apiStrict",
+            "apiDeprecationErrors");
+
+    // Fields that decide the plan; anything else (update and replacement documents in particular) is dropped
+    private static final Set<String> PLANNING = Set.of("filter", "query", "sort", "pipeline", "cursor", "key",
+            "projection", "fields", "hint", "collation", "limit", "skip", "remove", "new", "upsert", "multi");
+    // Stands in for the update document, which explain needs but which does not affect the plan
+    private static final BsonDocument NO_OP_UPDATE = new BsonDocument("$set", new BsonDocument());
+
+    private ExplainCommands() {
+    }
+
+    public static boolean isExplainable(String commandName) {
+        return EXPLAINABLE.contains(commandName);
+    }
+
+    /**
+     * A detached copy of just the parts of an explainable command that {@link QueryShape}
+     * and {@link #explain} look at. Writes keep their first statement's filter with the
+     * update replaced by a no-op, so large payloads are never copied.
+     */
+    public static BsonDocument planningCopy(String commandName, BsonDocument command) {
+        // The command name has to stay the first field
+        BsonDocument copy = new BsonDocument(commandName, command.get(commandName));
+        copy.putAll(planningFields(command));
+        if ("findAndModify".equals(commandName) && command.containsKey("update")) {
+            copy.put("update", NO_OP_UPDATE);
+        } else if ("update".equals(commandName) || "delete".equals(commandName)) {
+            String statements = commandName + "s";
+            BsonArray original = command.getArray(statements, new BsonArray());
+            BsonArray kept = new BsonArray();
+            if (!original.isEmpty()) {
+                BsonDocument statement = planningFields(original.get(0).asDocument());
+                statement.put("q", original.get(0).asDocument().get("q", new BsonDocument()));
+                if ("update".equals(commandName)) {
+                    statement.put("u", NO_OP_UPDATE);
+                }
+                kept.add(statement);
+            }
+            copy.put(statements, kept);
+        }
+        // Materialise the values, the driver's buffers are released after the listener returns
+        return copy.clone();
+    }
+
+    private static BsonDocument planningFields(BsonDocument document) {
+        BsonDocument fields = new BsonDocument();
+        document.forEach((key, value) -> {
+            if (PLANNING.contains(key)) {
+                fields.put(key, value);
+            }
+        });
+        return fields;
+    }
+
+    /**
+     * @param verbosity {@code queryPlanner} to only plan the command, {@code executionStats}
+     *                  to also run it and report what it read
+     */
+    public static BsonDocument explain(BsonDocument command, String verbosity) {
+        BsonDocument explained = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!ENVELOPE.contains(key)) {
+                explained.put(key, value);
+            }
+        });
+        return new BsonDocument("explain", explained)
+                .append("verbosity", new BsonString(verbosity));
+    }
+}
@@ -0,0 +1,131 @@
+package java.com.smartnotes.repository.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.RequestContext;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.reactivestreams.client.MongoClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.com.smartnotes.config.MongoMetricsProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every command the driver sends, tagged by command, collection and outcome, and
+ * logs commands slower than {@code app.mongo.metrics.slow-query-threshold-ms} with the
+ * repository method that issued them, their redacted filter shape and a summary of the
+ * plan the server chose.
+ */
+@Slf4j
+public class MongoCommandMetrics implements CommandListener {
+
+    private static final String NONE = "none";
+    private final MeterRegistry meterRegistry;
+    private final MongoMetricsProperties properties;
+    // Looked up on first use, since the client is built with this listener
+    private final ObjectProvider<MongoClient> mongoClient;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<Integer, Started> inFlight = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> recentlyExplained;
+
+    private record Started(String database, String command, String collection, String method, BsonDocument query) {
+    }
+
+    public MongoCommandMetrics(MeterRegistry meterRegistry, MongoMetricsProperties properties,
+                               ObjectProvider<MongoClient> mongoClient) {
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        this.mongoClient = mongoClient;
+        this.recentlyExplained = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofSeconds(properties.getExplainIntervalSeconds()))
+                .build();
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String name = event.getCommandName();
+        BsonDocument command = event.getCommand();
+        // The event's document is only valid during the callback; keep a copy of what the slow log needs
+        BsonDocument query = properties.getSlowQueryThresholdMs() > 0 && ExplainCommands.isExplainable(name)
+                ? ExplainCommands.planningCopy(name, command)
+                : null;
+        inFlight.put(event.getRequestId(), new Started(event.getDatabaseName(), name, collection(name, command),
+                repositoryMethod(event.getRequestContext()), query));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        Started started = inFlight.remove(event.getRequestId());
+        if (started == null) {
+            return;
+        }
+        long elapsed = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        timer(started, "success").record(elapsed, TimeUnit.NANOSECONDS);
+        long threshold = properties.getSlowQueryThresholdMs();
+        if (threshold > 0 && elapsed >= TimeUnit.MILLISECONDS.toNanos(threshold)) {
+            logSlow(started, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        Started started = inFlight.remove(event.getRequestId());
+        if (started != null) {
+            timer(started, "failure").record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(Started started, String status) {
+        return timers.computeIfAbsent(started.command() + "|" + started.collection() + "|" + status,
+                key -> Timer.builder("mongodb.commands")
+                        .description("Time for the server to answer a command, including the network round trip")
+                        .tag("command", started.command())
+                        .tag("collection", started.collection())
+                        .tag("status", status)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry));
+    }
+
+    private void logSlow(Started started, long millis) {
+        String shape = started.query() != null ? QueryShape.describe(started.command(), started.query()) : "{}";
+        boolean explain = started.query() != null && properties.isExplainSlowQueries()
+                && recentlyExplained.asMap().putIfAbsent(started.collection() + shape, Boolean.TRUE) == null;
+        if (!explain) {
+            log.warn("Slow Mongo {} on {} from {} took {} ms, shape {}",
+                    started.command(), started.collection(), started.method(), millis, shape);
+            return;
+        }
+        // queryPlanner verbosity only plans the query, it does not run it again
+        BsonDocument explainCommand = ExplainCommands.explain(started.query(), "queryPlanner");
+        Mono.from(mongoClient.getObject().getDatabase(started.database()).runCommand(explainCommand))
+                .map(QueryShape::planSummary)
+                .onErrorResume(e -> Mono.just("unavailable (" + e.getMessage() + ")"))
+                .subscribe(plan -> log.warn("Slow Mongo {} on {} from {} took {} ms, shape {}, plan {}",
+                        started.command(), started.collection(), started.method(), millis, shape, plan));
+    }
+
+    private static String collection(String name, BsonDocument command) {
+        BsonValue target = "getMore".equals(name) ? command.get("collection") : command.get(name);
+        return target != null && target.isString() ? target.asString().getValue() : NONE;
+    }
+
+    private static String repositoryMethod(RequestContext context) {
+        return context != null && context.hasKey(RepositoryMetricsInterceptor.METHOD_CONTEXT_KEY)
+                ? context.get(RepositoryMetricsInterceptor.METHOD_CONTEXT_KEY)
+                : NONE;
+    }
+}
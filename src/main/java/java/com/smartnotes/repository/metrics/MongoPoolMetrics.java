@@ -0,0 +1,132 @@
+package java.com.smartnotes.repository.metrics;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection pool load per server, for sizing {@code maxPoolSize}: how long callers
+ * wait to check out a connection, how many are waiting, and how many connections are
+ * in use against the pool's maximum.
+ */
+public class MongoPoolMetrics implements ConnectionPoolListener {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<ServerId, Pool> pools = new ConcurrentHashMap<>();
+
+    private static final class Pool {
+        final int maxSize;
+        final AtomicInteger inUse = new AtomicInteger();
+        final AtomicInteger waiting = new AtomicInteger();
+        Timer checkouts;
+        List<Meter> meters;
+
+        Pool(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        double saturation() {
+            return maxSize > 0 ? (double) inUse.get() / maxSize : 0;
+        }
+    }
+
+    public MongoPoolMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void connectionPoolCreated(ConnectionPoolCreatedEvent event) {
+        Pool pool = new Pool(event.getSettings().getMaxSize());
+        Tags tags = Tags.of("server", event.getServerId().getAddress().toString());
+        pool.checkouts = checkoutTimer(event.getServerId(), "success");
+        pool.meters = List.of(
+                pool.checkouts,
+                Gauge.builder("mongodb.pool.connections.in-use", pool.inUse, AtomicInteger::get)
+                        .description("Connections checked out of the pool")
+                        .tags(tags)
+                        .register(meterRegistry),
+                Gauge.builder("mongodb.pool.connections.max", pool, p -> p.maxSize)
+                        .description("Most connections the pool will open")
+                        .tags(tags)
+                        .register(meterRegistry),
+                Gauge.builder("mongodb.pool.saturation", pool, Pool::saturation)
+                        .description("Share of the pool's maximum connections in use")
+                        .tags(tags)
+                        .register(meterRegistry),
+                Gauge.builder("mongodb.pool.waiting", pool.waiting, AtomicInteger::get)
+                        .description("Callers waiting to check out a connection")
+                        .tags(tags)
+                        .register(meterRegistry));
+        pools.put(event.getServerId(), pool);
+    }
+
+    @Override
+    public void connectionPoolClosed(ConnectionPoolClosedEvent event) {
+        Pool pool = pools.remove(event.getServerId());
+        if (pool != null) {
+            pool.meters.forEach(meterRegistry::remove);
+        }
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        Pool pool = pools.get(event.getServerId());
+        if (pool != null) {
+            pool.waiting.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        Pool pool = pools.get(event.getConnectionId().getServerId());
+        if (pool != null) {
+            pool.waiting.decrementAndGet();
+            pool.inUse.incrementAndGet();
+            pool.checkouts.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        Pool pool = pools.get(event.getServerId());
+        if (pool != null) {
+            pool.waiting.decrementAndGet();
+        }
+        // Rare enough to look the timer up each time
+        checkoutTimer(event.getServerId(), event.getReason().name().toLowerCase())
+                .record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        Pool pool = pools.get(event.getConnectionId().getServerId());
+        if (pool != null) {
+            pool.inUse.decrementAndGet();
+        }
+    }
+
+    private Timer checkoutTimer(ServerId serverId, String outcome) {
+        return Timer.builder("mongodb.pool.checkout")
+                .description("Time spent waiting to check a connection out of the pool")
+                .tag("server", serverId.getAddress().toString())
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,158 @@
+package java.com.smartnotes.repository.metrics;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Redacted query shapes and plan summaries for the slow query log. A shape keeps field
+ * names, operators and sort orders and replaces every value with {@code ?}, so queries
+ * that differ only in their values share a shape and nothing a user wrote is logged.
+ */
+final class QueryShape {
+
+    private static final BsonString REDACTED = new BsonString("?");
+    private static final BsonString OMITTED = new BsonString("...");
+
+    private QueryShape() {
+    }
+
+    static String describe(String commandName, BsonDocument command) {
+        BsonDocument shape = new BsonDocument();
+        switch (commandName) {
+            case "find" -> {
+                putRedacted(shape, "filter", command.get("filter"));
+                putAsIs(shape, "sort", command.get("sort"));
+            }
+            case "count", "distinct" -> putRedacted(shape, "query", command.get("query"));
+            case "findAndModify" -> {
+                putRedacted(shape, "query", command.get("query"));
+                putAsIs(shape, "sort", command.get("sort"));
+            }
+            case "update" -> putRedacted(shape, "q", firstStatement(command, "updates", "q"));
+            case "delete" -> putRedacted(shape, "q", firstStatement(command, "deletes", "q"));
+            case "aggregate" -> {
+                BsonArray stages = new BsonArray();
+                for (BsonValue stage : command.getArray("pipeline", new BsonArray())) {
+                    stages.add(stageShape(stage.asDocument()));
+                }
+                shape.put("pipeline", stages);
+            }
+            default -> {
+            }
+        }
+        return shape.toJson();
+    }
+
+    /**
+     * The winning plan as a chain of stages, innermost last, e.g.
+     * {@code LIMIT <- FETCH <- IXSCAN userNotes}.
+     */
+    static String planSummary(Document explain) {
+        Document planner = findQueryPlanner(explain);
+        if (planner == null) {
+            return "unknown";
+        }
+        Document plan = planner.get("winningPlan", Document.class);
+        if (plan != null && plan.containsKey("queryPlan")) {
+            // Plans run by the slot-based engine nest the classic plan one level down
+            plan = plan.get("queryPlan", Document.class);
+        }
+        return plan != null ? describeStage(plan) : "unknown";
+    }
+
+    private static String describeStage(Document stage) {
+        StringBuilder out = new StringBuilder(stage.getString("stage"));
+        if (stage.containsKey("indexName")) {
+            out.append(' ').append(stage.getString("indexName"));
+        }
+        Document input = stage.get("inputStage", Document.class);
+        List<Document> inputs = stage.getList("inputStages", Document.class);
+        if (input != null) {
+            out.append(" <- ").append(describeStage(input));
+        } else if (inputs != null) {
+            StringJoiner branches = new StringJoiner(", ", " <- (", ")");
+            for (Document branch : inputs) {
+                branches.add(describeStage(branch));
+            }
+            out.append(branches);
+        }
+        return out.toString();
+    }
+
+    // Aggregations report the planner inside their first stage rather than at the top
+    private static Document findQueryPlanner(Document document) {
+        if (document.get("queryPlanner") instanceof Document planner) {
+            return planner;
+        }
+        List<Document> nested = new ArrayList<>();
+        for (Object value : document.values()) {
+            if (value instanceof Document child) {
+                nested.add(child);
+            } else if (value instanceof List<?> list) {
+                list.stream().filter(Document.class::isInstance).map(Document.class::cast).forEach(nested::add);
+            }
+        }
+        for (Document child : nested) {
+            Document planner = findQueryPlanner(child);
+            if (planner != null) {
+                return planner;
+            }
+        }
+        return null;
+    }
+
+    private static BsonValue firstStatement(BsonDocument command, String field, String key) {
+        BsonArray statements = command.getArray(field, new BsonArray());
+        return statements.isEmpty() ? null : statements.get(0).asDocument().get(key);
+    }
+
+    private static BsonDocument stageShape(BsonDocument stage) {
+        BsonDocument shape = new BsonDocument();
+        for (String name : stage.keySet()) {
+            switch (name) {
+                case "$match" -> shape.put(name, redact(stage.get(name)));
+                case "$sort", "$limit", "$skip" -> shape.put(name, stage.get(name));
+                default -> shape.put(name, OMITTED);
+            }
+        }
+        return shape;
+    }
+
+    private static void putRedacted(BsonDocument shape, String field, BsonValue value) {
+        if (value != null) {
+            shape.put(field, redact(value));
+        }
+    }
+
+    private static void putAsIs(BsonDocument shape, String field, BsonValue value) {
+        if (value != null) {
+            shape.put(field, value);
+        }
+    }
+
+    private static BsonValue redact(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument redacted = new BsonDocument();
+            value.asDocument().forEach((key, child) -> redacted.put(key, redact(child)));
+            return redacted;
+        }
+        if (value.isArray()) {
+            BsonArray array = value.asArray();
+            // Clauses of $and/$or keep their shape; lists of values collapse to one marker
+            if (!array.isEmpty() && array.get(0).isDocument()) {
+                BsonArray redacted = new BsonArray();
+                array.forEach(child -> redacted.add(redact(child)));
+                return redacted;
+            }
+            return new BsonArray(List.of(REDACTED));
+        }
+        return REDACTED;
+    }
+}
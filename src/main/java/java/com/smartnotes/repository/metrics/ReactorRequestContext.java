@@ -0,0 +1,66 @@
+package java.com.smartnotes.repository.metrics;
+
+import com.mongodb.RequestContext;
+import com.mongodb.reactivestreams.client.ReactiveContextProvider;
+import org.reactivestreams.Subscriber;
+import reactor.core.CoreSubscriber;
+import reactor.util.context.Context;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Exposes the subscriber's Reactor context to the driver's listeners as the
+ * operation's {@link RequestContext}.
+ */
+public final class ReactorRequestContext implements RequestContext {
+
+    public static final ReactiveContextProvider PROVIDER = ReactorRequestContext::of;
+
+    private Context context;
+
+    private ReactorRequestContext(Context context) {
+        this.context = context;
+    }
+
+    static RequestContext of(Subscriber<?> subscriber) {
+        return new ReactorRequestContext(subscriber instanceof CoreSubscriber<?> core
+                ? Context.of(core.currentContext())
+                : Context.empty());
+    }
+
+    @Override
+    public <T> T get(Object key) {
+        return context.get(key);
+    }
+
+    @Override
+    public boolean hasKey(Object key) {
+        return context.hasKey(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return context.isEmpty();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        context = context.put(key, value);
+    }
+
+    @Override
+    public void delete(Object key) {
+        context = context.delete(key);
+    }
+
+    @Override
+    public int size() {
+        return context.size();
+    }
+
+    @Override
+    public Stream<Map.Entry<Object, Object>> stream() {
+        return context.stream();
+    }
+}
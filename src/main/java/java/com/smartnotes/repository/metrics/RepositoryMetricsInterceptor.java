@@ -0,0 +1,69 @@
+package java.com.smartnotes.repository.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times reactive repository calls from subscription to termination, tagged by
+ * repository, method and outcome. The method is also written to the Reactor context,
+ * where {@link MongoCommandMetrics} picks it up to attribute the commands it sends.
+ */
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    static final String METHOD_CONTEXT_KEY = RepositoryMetricsInterceptor.class.getName() + ".method";
+
+    private final String repository;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(String repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        String method = invocation.getMethod().getName();
+        Context context = Context.of(METHOD_CONTEXT_KEY, repository + "." + method);
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                long started = System.nanoTime();
+                return mono.doFinally(signal -> record(method, signal, started));
+            }).contextWrite(context);
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                long started = System.nanoTime();
+                return flux.doFinally(signal -> record(method, signal, started));
+            }).contextWrite(context);
+        }
+        return result;
+    }
+
+    private void record(String method, SignalType signal, long started) {
+        String outcome = switch (signal) {
+            case ON_COMPLETE -> "success";
+            case ON_ERROR -> "error";
+            default -> "cancelled";
+        };
+        timers.computeIfAbsent(method + "|" + outcome, key -> Timer.builder("mongodb.repository.invocations")
+                        .description("Time from subscribing to a repository call until it terminates")
+                        .tag("repository", repository)
+                        .tag("method", method)
+                        .tag("outcome", outcome)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry))
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+}
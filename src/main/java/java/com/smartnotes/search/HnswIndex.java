@@ -0,0 +1,478 @@
+package java.com.smartnotes.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Approximate nearest-neighbour index over one user's note embeddings, using a
+ * hierarchical navigable small world graph (Malkov and Yashunin).
+ * <p>
+ * Vectors are normalized on the way in and stored back to back in a single float
+ * array, so similarity is a dot product over a contiguous slice. Nodes are dense
+ * ints; neighbour lists are int arrays whose first element is the count. Replaced
+ * and removed notes are only marked, as unlinking them would degrade the graph;
+ * once too many accumulate the owner rebuilds the index (see {@link #needsRebuild()}).
+ * All methods are synchronized; an index only ever serves a single user.
+ */
+final class HnswIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+    // Rough per-node overheads used for the memory budget: key, label, map entry
+    private static final int NODE_OVERHEAD_BYTES = 160;
+    // Rebuild once this share of the nodes are dead, and at least this many
+    private static final int REBUILD_DIVISOR = 4;
+    private static final int REBUILD_MIN_REMOVED = 64;
+
+    record Hit(String key, String label, float score) {
+    }
+
+    // Candidates ordered best first
+    private record Ranked(int[] nodes, float[] scores) {
+    }
+
+    private final int dimensions;
+    private final int maxLinks;
+    private final int maxBaseLinks;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelFactor;
+    // Fixed seed, so building from the same vectors gives the same graph
+    private final SplittableRandom random = new SplittableRandom(0x5EED);
+
+    private final Map<String, Integer> nodesByKey = new HashMap<>();
+    // Node n's vector is vectors[n * dimensions, (n + 1) * dimensions)
+    private float[] vectors;
+    // links[n][layer] = {count, neighbour, neighbour, ...}
+    private int[][][] links;
+    private String[] keys;
+    private String[] labels;
+    private boolean[] removed;
+    private int size;
+    private int removedCount;
+    private int entryPoint = -1;
+    private int topLayer = -1;
+
+    // A node has been visited by the current search when its mark equals visitEpoch
+    private int[] visitMarks;
+    private int visitEpoch;
+
+    HnswIndex(int dimensions, int maxLinks, int efConstruction, int efSearch) {
+        this.dimensions = dimensions;
+        this.maxLinks = maxLinks;
+        this.maxBaseLinks = maxLinks * 2;
+        this.efConstruction = Math.max(efConstruction, maxLinks);
+        this.efSearch = efSearch;
+        this.levelFactor = 1 / Math.log(maxLinks);
+        this.vectors = new float[INITIAL_CAPACITY * dimensions];
+        this.links = new int[INITIAL_CAPACITY][][];
+        this.keys = new String[INITIAL_CAPACITY];
+        this.labels = new String[INITIAL_CAPACITY];
+        this.removed = new boolean[INITIAL_CAPACITY];
+        this.visitMarks = new int[INITIAL_CAPACITY];
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Indexes {@code vector} under {@code key}, replacing anything indexed under it before.
+     * Re-adding an unchanged vector only updates the label.
+     *
+     * @param label shown in search results, e.g. the note title
+     */
+    synchronized void upsert(String key, String label, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+        float[] unit = normalize(vector);
+        Integer existing = nodesByKey.get(key);
+        if (existing != null) {
+            int offset = existing * dimensions;
+            if (Arrays.equals(vectors, offset, offset + dimensions, unit, 0, dimensions)) {
+                labels[existing] = label;
+                return;
+            }
+            markRemoved(existing);
+        }
+
+        int node = allocate(key, label, unit);
+        connect(node, unit);
+    }
+
+    synchronized void remove(String key) {
+        Integer node = nodesByKey.remove(key);
+        if (node != null) {
+            markRemoved(node);
+        }
+    }
+
+    /**
+     * The stored (normalized) vector for {@code key}, or null if it is not indexed.
+     */
+    synchronized float[] vector(String key) {
+        Integer node = nodesByKey.get(key);
+        if (node == null) {
+            return null;
+        }
+        return Arrays.copyOfRange(vectors, node * dimensions, (node + 1) * dimensions);
+    }
+
+    /**
+     * The indexed entries most similar to {@code query}, best first, scored by cosine similarity.
+     *
+     * @param excludeKey left out of the results, e.g. the note related notes are wanted for
+     */
+    synchronized List<Hit> search(float[] query, int limit, String excludeKey) {
+        if (entryPoint < 0 || query.length != dimensions) {
+            return List.of();
+        }
+        float[] unit = normalize(query);
+        int current = entryPoint;
+        for (int layer = topLayer; layer > 0; layer--) {
+            current = closest(unit, current, layer);
+        }
+        // Dead nodes still occupy slots in the candidate list, so widen it by their share
+        int ef = Math.max(efSearch, limit + 1) * size / Math.max(1, size - removedCount);
+        Ranked found = rank(searchLayer(unit, current, ef, 0));
+
+        List<Hit> hits = new ArrayList<>(limit);
+        for (int i = 0; i < found.nodes.length && hits.size() < limit; i++) {
+            int node = found.nodes[i];
+            if (!removed[node] && !keys[node].equals(excludeKey)) {
+                hits.add(new Hit(keys[node], labels[node], found.scores[i]));
+            }
+        }
+        return hits;
+    }
+
+    synchronized int liveCount() {
+        return size - removedCount;
+    }
+
+    synchronized boolean needsRebuild() {
+        return removedCount >= REBUILD_MIN_REMOVED && removedCount * REBUILD_DIVISOR > size;
+    }
+
+    synchronized long estimatedBytes() {
+        // Upper layers hold about 1 / (maxLinks - 1) of the nodes, so the bottom layer dominates
+        long linkBytes = (long) size * (maxBaseLinks + maxLinks / 2 + 2) * Integer.BYTES;
+        return (long) vectors.length * Float.BYTES + linkBytes + (long) size * NODE_OVERHEAD_BYTES;
+    }
+
+    private int allocate(String key, String label, float[] unit) {
+        if (size == keys.length) {
+            int capacity = keys.length * 2;
+            vectors = Arrays.copyOf(vectors, capacity * dimensions);
+            links = Arrays.copyOf(links, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            removed = Arrays.copyOf(removed, capacity);
+            visitMarks = Arrays.copyOf(visitMarks, capacity);
+        }
+        int node = size++;
+        System.arraycopy(unit, 0, vectors, node * dimensions, dimensions);
+        keys[node] = key;
+        labels[node] = label;
+        nodesByKey.put(key, node);
+        return node;
+    }
+
+    private void markRemoved(int node) {
+        removed[node] = true;
+        removedCount++;
+    }
+
+    private void connect(int node, float[] unit) {
+        int level = randomLevel();
+        int[][] nodeLinks = new int[level + 1][];
+        for (int layer = 0; layer <= level; layer++) {
+            nodeLinks[layer] = new int[capacity(layer) + 1];
+        }
+        links[node] = nodeLinks;
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLayer = level;
+            return;
+        }
+
+        int current = entryPoint;
+        for (int layer = topLayer; layer > level; layer--) {
+            current = closest(unit, current, layer);
+        }
+        for (int layer = Math.min(level, topLayer); layer >= 0; layer--) {
+            Ranked candidates = rank(searchLayer(unit, current, efConstruction, layer));
+            int[] chosen = new int[capacity(layer)];
+            int count = selectNeighbours(candidates.nodes, candidates.scores, candidates.nodes.length, chosen);
+            int[] list = nodeLinks[layer];
+            System.arraycopy(chosen, 0, list, 1, count);
+            list[0] = count;
+            for (int i = 0; i < count; i++) {
+                addLink(chosen[i], node, layer);
+            }
+            current = candidates.nodes[0];
+        }
+        if (level > topLayer) {
+            topLayer = level;
+            entryPoint = node;
+        }
+    }
+
+    private int capacity(int layer) {
+        return layer == 0 ? maxBaseLinks : maxLinks;
+    }
+
+    private int randomLevel() {
+        return (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+    }
+
+    private void addLink(int node, int neighbour, int layer) {
+        int[] list = links[node][layer];
+        int count = list[0];
+        if (count < list.length - 1) {
+            list[count + 1] = neighbour;
+            list[0] = count + 1;
+            return;
+        }
+
+        // Full: choose again among the current neighbours and the newcomer
+        int[] candidates = new int[count + 1];
+        float[] scores = new float[count + 1];
+        for (int i = 0; i < count; i++) {
+            candidates[i] = list[i + 1];
+            scores[i] = similarity(node, candidates[i]);
+        }
+        candidates[count] = neighbour;
+        scores[count] = similarity(node, neighbour);
+        sortDescending(candidates, scores);
+
+        int[] chosen = new int[count];
+        int kept = selectNeighbours(candidates, scores, candidates.length, chosen);
+        System.arraycopy(chosen, 0, list, 1, kept);
+        list[0] = kept;
+    }
+
+    /**
+     * The neighbour selection heuristic from the HNSW paper: walking candidates best
+     * first, keep one only if it is closer to the base node than to any neighbour kept
+     * so far. Links then point in different directions instead of into one cluster,
+     * which keeps the graph navigable.
+     *
+     * @return the number of neighbours written to {@code chosen}
+     */
+    private int selectNeighbours(int[] candidates, float[] scores, int count, int[] chosen) {
+        int kept = 0;
+        for (int i = 0; i < count && kept < chosen.length; i++) {
+            boolean diverse = true;
+            for (int j = 0; j < kept && diverse; j++) {
+                diverse = similarity(candidates[i], chosen[j]) < scores[i];
+            }
+            if (diverse) {
+                chosen[kept++] = candidates[i];
+            }
+        }
+        return kept;
+    }
+
+    // Greedy walk to the node most similar to the query on one layer
+    private int closest(float[] query, int entry, int layer) {
+        int current = entry;
+        float best = similarity(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] list = links[current][layer];
+            for (int i = 1; i <= list[0]; i++) {
+                float score = similarity(query, list[i]);
+                if (score > best) {
+                    best = score;
+                    current = list[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer, returning up to {@code ef} nodes closest to the
+     * query as a heap with the worst at the top.
+     */
+    private ScoredHeap searchLayer(float[] query, int entry, int ef, int layer) {
+        if (++visitEpoch == Integer.MAX_VALUE) {
+            Arrays.fill(visitMarks, 0);
+            visitEpoch = 1;
+        }
+        ScoredHeap candidates = new ScoredHeap(ef, true);
+        ScoredHeap results = new ScoredHeap(ef + 1, false);
+        float entryScore = similarity(query, entry);
+        visitMarks[entry] = visitEpoch;
+        candidates.push(entry, entryScore);
+        results.push(entry, entryScore);
+
+        while (candidates.size > 0) {
+            float score = candidates.topScore();
+            int current = candidates.pop();
+            if (results.size >= ef && score < results.topScore()) {
+                break;
+            }
+            int[] list = links[current][layer];
+            for (int i = 1; i <= list[0]; i++) {
+                int neighbour = list[i];
+                if (visitMarks[neighbour] == visitEpoch) {
+                    continue;
+                }
+                visitMarks[neighbour] = visitEpoch;
+                float neighbourScore = similarity(query, neighbour);
+                if (results.size < ef || neighbourScore > results.topScore()) {
+                    candidates.push(neighbour, neighbourScore);
+                    results.push(neighbour, neighbourScore);
+                    if (results.size > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static Ranked rank(ScoredHeap results) {
+        int count = results.size;
+        int[] nodes = new int[count];
+        float[] scores = new float[count];
+        for (int i = count - 1; i >= 0; i--) {
+            scores[i] = results.topScore();
+            nodes[i] = results.pop();
+        }
+        return new Ranked(nodes, scores);
+    }
+
+    // Insertion sort; neighbour lists are a few dozen entries at most
+    private static void sortDescending(int[] nodes, float[] scores) {
+        for (int i = 1; i < nodes.length; i++) {
+            int node = nodes[i];
+            float score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                nodes[j + 1] = nodes[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            nodes[j + 1] = node;
+            scores[j + 1] = score;
+        }
+    }
+
+    private float similarity(float[] query, int node) {
+        return dot(query, 0, vectors, node * dimensions, dimensions);
+    }
+
+    private float similarity(int a, int b) {
+        return dot(vectors, a * dimensions, vectors, b * dimensions, dimensions);
+    }
+
+    // Four independent sums, so the loop is not bound by the latency of one chain of adds
+    private static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] unit = new float[vector.length];
+        if (norm == 0) {
+            return unit;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = vector[i] * scale;
+        }
+        return unit;
+    }
+
+    /**
+     * Binary heap of (node, score) pairs over primitive arrays, best-first or worst-first.
+     */
+    private static final class ScoredHeap {
+        private final boolean bestFirst;
+        private int[] nodes;
+        private float[] scores;
+        private int size;
+
+        private ScoredHeap(int capacity, boolean bestFirst) {
+            this.bestFirst = bestFirst;
+            this.nodes = new int[Math.max(capacity, 4)];
+            this.scores = new float[nodes.length];
+        }
+
+        private void push(int node, float score) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!above(score, scores[parent])) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            scores[i] = score;
+        }
+
+        private float topScore() {
+            return scores[0];
+        }
+
+        private int pop() {
+            int top = nodes[0];
+            size--;
+            if (size > 0) {
+                int node = nodes[size];
+                float score = scores[size];
+                int i = 0;
+                int half = size >>> 1;
+                while (i < half) {
+                    int child = 2 * i + 1;
+                    if (child + 1 < size && above(scores[child + 1], scores[child])) {
+                        child++;
+                    }
+                    if (!above(scores[child], score)) {
+                        break;
+                    }
+                    nodes[i] = nodes[child];
+                    scores[i] = scores[child];
+                    i = child;
+                }
+                nodes[i] = node;
+                scores[i] = score;
+            }
+            return top;
+        }
+
+        private boolean above(float a, float b) {
+            return bestFirst ? a > b : a < b;
+        }
+    }
+}
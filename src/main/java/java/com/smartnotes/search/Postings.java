@@ -0,0 +1,39 @@
+package java.com.smartnotes.search;
+
+import java.util.Arrays;
+
+/**
+ * Documents containing one term and the term's frequency in each, as parallel
+ * primitive arrays. Order is not significant.
+ */
+final class Postings {
+
+    int[] docs = new int[2];
+    int[] freqs = new int[2];
+    int size;
+
+    void add(int doc, int freq) {
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+            freqs = Arrays.copyOf(freqs, size * 2);
+        }
+        docs[size] = doc;
+        freqs[size] = freq;
+        size++;
+    }
+
+    void remove(int doc) {
+        for (int i = 0; i < size; i++) {
+            if (docs[i] == doc) {
+                size--;
+                docs[i] = docs[size];
+                freqs[i] = freqs[size];
+                return;
+            }
+        }
+    }
+
+    long estimatedBytes() {
+        return 32 + 8L * docs.length;
+    }
+}
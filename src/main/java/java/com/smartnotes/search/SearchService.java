@@ -0,0 +1,129 @@
+package java.com.smartnotes.search;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartnotes.model.Note;
+import com.smartnotes.model.Task;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.com.smartnotes.config.SearchProperties;
+import java.com.smartnotes.dto.SearchResultDto;
+import java.com.smartnotes.repository.NoteRepository;
+import java.com.smartnotes.repository.TaskRepository;
+import java.com.smartnotes.security.SecurityUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Full-text search over a user's notes and tasks.
+ * <p>
+ * Each user's index is built from the database on their first search and then kept
+ * up to date by the note and task services. Indexes are held within a memory budget;
+ * cold users are evicted and rebuilt if they search again.
+ */
+@Slf4j
+@Service
+public class SearchService {
+
+    private static final String NOTE = "note";
+    private static final String TASK = "task";
+
+    private final NoteRepository noteRepository;
+    private final TaskRepository taskRepository;
+    private final SecurityUtils securityUtils;
+    private final SearchProperties properties;
+    private final AsyncCache<String, UserSearchIndex> indexes;
+
+    public SearchService(NoteRepository noteRepository, TaskRepository taskRepository,
+                         SecurityUtils securityUtils, SearchProperties properties, MeterRegistry meterRegistry) {
+        this.noteRepository = noteRepository;
+        this.taskRepository = taskRepository;
+        this.securityUtils = securityUtils;
+        this.properties = properties;
+        this.indexes = Caffeine.newBuilder()
+                // Weighed in KiB so large indexes stay within int range
+                .maximumWeight(properties.getMemoryBudgetMb() * 1024)
+                .<String, UserSearchIndex>weigher((userId, index) -> (int) Math.min(Integer.MAX_VALUE, index.estimatedBytes() / 1024 + 1))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "search-indexes");
+    }
+
+    public Flux<SearchResultDto> search(String query, int limit) {
+        int maxResults = Math.max(1, Math.min(limit, properties.getMaxResults()));
+        return securityUtils.getCurrentUser()
+                // The build is shared by concurrent first searches; one of them cancelling must not cancel it
+                .flatMap(user -> Mono.fromFuture(indexes.get(user.getId(), (userId, executor) -> build(userId)), true))
+                .flatMapIterable(index -> index.search(query, maxResults))
+                .map(hit -> {
+                    int separator = hit.key().indexOf(':');
+                    return new SearchResultDto(hit.key().substring(0, separator), hit.key().substring(separator + 1), hit.label(), hit.score());
+                });
+    }
+
+    public void indexNote(Note note) {
+        update(note.getUserId(), index -> addNote(index, note));
+    }
+
+    public void removeNote(String userId, String noteId) {
+        update(userId, index -> index.remove(key(NOTE, noteId)));
+    }
+
+    public void indexTask(Task task) {
+        update(task.getUserId(), index -> addTask(index, task));
+    }
+
+    public void removeTask(String userId, String taskId) {
+        update(userId, index -> index.remove(key(TASK, taskId)));
+    }
+
+    // Only users with a live index are updated; anyone else gets a fresh build on their next search
+    private void update(String userId, Consumer<UserSearchIndex> change) {
+        CompletableFuture<UserSearchIndex> pending = indexes.getIfPresent(userId);
+        if (pending == null) {
+            return;
+        }
+        pending.thenAccept(index -> {
+            change.accept(index);
+            // Re-insert so the cache re-weighs the index
+            indexes.asMap().replace(userId, pending, CompletableFuture.completedFuture(index));
+        });
+    }
+
+    private CompletableFuture<UserSearchIndex> build(String userId) {
+        UserSearchIndex index = new UserSearchIndex();
+        long started = System.nanoTime();
+        return noteRepository.findByUserIdAndDeletedFalse(userId)
+                .doOnNext(note -> addNote(index, note))
+                .thenMany(taskRepository.findByUserId(userId))
+                .doOnNext(task -> addTask(index, task))
+                .then(Mono.fromCallable(() -> {
+                    log.debug("Built search index for user {} ({} KiB) in {} ms", userId,
+                            index.estimatedBytes() / 1024, (System.nanoTime() - started) / 1_000_000);
+                    return index;
+                }))
+                .toFuture();
+    }
+
+    private static void addNote(UserSearchIndex index, Note note) {
+        String text = String.join("\n", nullToEmpty(note.getTitle()), nullToEmpty(note.getContent()), nullToEmpty(note.getSummary()));
+        index.upsert(key(NOTE, note.getId()), note.getTitle(), text);
+    }
+
+    private static void addTask(UserSearchIndex index, Task task) {
+        index.upsert(key(TASK, task.getId()), task.getDescription(), task.getDescription());
+    }
+
+    private static String key(String type, String id) {
+        return type + ":" + id;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,277 @@
+package java.com.smartnotes.search;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartnotes.exception.ResourceNotFoundException;
+import com.smartnotes.model.Note;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.com.smartnotes.config.SearchProperties;
+import java.com.smartnotes.dto.SearchResultDto;
+import java.com.smartnotes.model.NoteEmbedding;
+import java.com.smartnotes.repository.NoteEmbeddingRepository;
+import java.com.smartnotes.repository.NoteRepository;
+import java.com.smartnotes.security.SecurityUtils;
+import java.com.smartnotes.service.AIService;
+import java.com.smartnotes.util.ContentHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Semantic search and related notes, by k-NN over note embeddings.
+ * <p>
+ * Each note's embedding is stored with a hash of the text it was computed from, and
+ * notes are only sent to the provider again when that hash changes. Queries are served
+ * from a per-user {@link HnswIndex} built from the stored vectors on first use and kept
+ * up to date as notes are embedded. As with {@link SearchService}, indexes are held
+ * within a memory budget and cold users are evicted.
+ */
+@Slf4j
+@Service
+public class SemanticSearchService {
+
+    private static final String NOTE = "note";
+    private static final int QUERY_CACHE_SIZE = 1000;
+
+    private final NoteRepository noteRepository;
+    private final NoteEmbeddingRepository embeddingRepository;
+    private final AIService aiService;
+    private final SecurityUtils securityUtils;
+    private final SearchProperties properties;
+    private final AsyncCache<String, HnswIndex> indexes;
+    private final Cache<String, float[]> queryEmbeddings;
+    private final Timer knnTimer;
+    // Hash of the latest text being embedded per note, so a slow embedding of an older
+    // version never overwrites a newer one
+    private final ConcurrentMap<String, String> pendingHashes = new ConcurrentHashMap<>();
+
+    public SemanticSearchService(NoteRepository noteRepository, NoteEmbeddingRepository embeddingRepository,
+                                 AIService aiService, SecurityUtils securityUtils,
+                                 SearchProperties properties, MeterRegistry meterRegistry) {
+        this.noteRepository = noteRepository;
+        this.embeddingRepository = embeddingRepository;
+        this.aiService = aiService;
+        this.securityUtils = securityUtils;
+        this.properties = properties;
+        this.indexes = Caffeine.newBuilder()
+                // Weighed in KiB so large indexes stay within int range
+                .maximumWeight(properties.getSemantic().getMemoryBudgetMb() * 1024)
+                .<String, HnswIndex>weigher((userId, index) -> (int) Math.min(Integer.MAX_VALUE, index.estimatedBytes() / 1024 + 1))
+                .recordStats()
+                .buildAsync();
+        // Repeated and paged queries skip the round trip to the provider
+        this.queryEmbeddings = Caffeine.newBuilder()
+                .maximumSize(QUERY_CACHE_SIZE)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build();
+        this.knnTimer = Timer.builder("search.semantic.knn")
+                .description("Time to answer a k-NN query from an in-memory index")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "semantic-indexes");
+    }
+
+    public Flux<SearchResultDto> search(String query, int limit) {
+        int maxResults = clampLimit(limit);
+        return securityUtils.getCurrentUser()
+                .flatMap(user -> index(user.getId())
+                        .zipWith(embedQuery(query)))
+                .flatMapIterable(indexAndQuery -> knn(indexAndQuery.getT1(), indexAndQuery.getT2(), maxResults, null))
+                .map(SemanticSearchService::toResult);
+    }
+
+    /**
+     * Notes most similar to the given one. A note that has not been embedded yet is
+     * embedded first.
+     */
+    public Flux<SearchResultDto> related(String noteId, int limit) {
+        int maxResults = clampLimit(limit);
+        return securityUtils.getCurrentUser()
+                .flatMap(user -> index(user.getId())
+                        .flatMap(index -> Mono.justOrEmpty(index.vector(noteId))
+                                .switchIfEmpty(Mono.defer(() -> noteRepository.findByIdAndUserId(noteId, user.getId())
+                                        .filter(note -> !note.isDeleted())
+                                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Note not found with id: " + noteId)))
+                                        .flatMap(this::embed)))
+                                .map(vector -> knn(index, vector, maxResults, noteId))))
+                .flatMapIterable(hits -> hits)
+                .map(SemanticSearchService::toResult);
+    }
+
+    /**
+     * Embeds the note in the background if its text has changed since it was last
+     * embedded. Completes immediately, so note writes never wait for the provider.
+     */
+    public Mono<Void> scheduleEmbedding(Note note) {
+        return Mono.deferContextual(context -> {
+            // The caller's context carries their identity, which the AI scheduler queues by
+            embed(note)
+                    .contextWrite(context)
+                    .subscribe(null, e -> log.warn("Could not embed note {}: {}", note.getId(), e.getMessage()));
+            return Mono.empty();
+        });
+    }
+
+    public Mono<Void> removeNote(String userId, String noteId) {
+        // An embedding still in flight for the note is dropped rather than saved
+        pendingHashes.remove(noteId);
+        update(userId, index -> index.remove(noteId));
+        return embeddingRepository.deleteById(noteId);
+    }
+
+    private Mono<float[]> embed(Note note) {
+        String text = embeddingText(note);
+        if (text.isBlank()) {
+            return Mono.empty();
+        }
+        String model = aiService.getEmbeddingModel();
+        String hash = ContentHash.sha256(model, String.valueOf(aiService.getEmbeddingDimensions()), text);
+        pendingHashes.put(note.getId(), hash);
+
+        return embeddingRepository.findById(note.getId())
+                .filter(stored -> hash.equals(stored.getContentHash()))
+                .map(NoteEmbedding::getVector)
+                .switchIfEmpty(Mono.defer(() -> aiService.embed(text)
+                        // A newer version of the note is being embedded; let that one win
+                        .filter(vector -> hash.equals(pendingHashes.get(note.getId())))
+                        .flatMap(vector -> embeddingRepository.save(NoteEmbedding.builder()
+                                .id(note.getId())
+                                .userId(note.getUserId())
+                                .title(note.getTitle())
+                                .contentHash(hash)
+                                .model(model)
+                                .vector(vector)
+                                .updatedAt(LocalDateTime.now())
+                                .build()))
+                        .map(NoteEmbedding::getVector)))
+                .doOnNext(vector -> {
+                    // Skip the index when the note was deleted or a newer version took over meanwhile
+                    if (hash.equals(pendingHashes.get(note.getId()))) {
+                        update(note.getUserId(), index -> index.upsert(note.getId(), note.getTitle(), vector));
+                    }
+                })
+                .doFinally(signal -> pendingHashes.remove(note.getId(), hash));
+    }
+
+    private Mono<float[]> embedQuery(String query) {
+        float[] cached = queryEmbeddings.getIfPresent(query);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return aiService.embed(query)
+                .doOnNext(vector -> queryEmbeddings.put(query, vector));
+    }
+
+    private List<HnswIndex.Hit> knn(HnswIndex index, float[] vector, int limit, String excludeKey) {
+        return knnTimer.record(() -> index.search(vector, limit, excludeKey));
+    }
+
+    private Mono<HnswIndex> index(String userId) {
+        // Concurrent queries share the build; one of them cancelling must not cancel it for the rest.
+        // The caller's context goes along so the backfill is queued under their identity.
+        return Mono.deferContextual(context -> Mono.fromFuture(indexes.get(userId, (id, executor) -> build(id, context)), true));
+    }
+
+    // Only users with a live index are updated; anyone else gets a fresh build on their next query
+    private void update(String userId, Consumer<HnswIndex> change) {
+        CompletableFuture<HnswIndex> pending = indexes.getIfPresent(userId);
+        if (pending == null) {
+            return;
+        }
+        pending.thenAccept(index -> {
+            change.accept(index);
+            if (index.needsRebuild()) {
+                indexes.asMap().remove(userId, pending);
+            } else {
+                // Re-insert so the cache re-weighs the index
+                indexes.asMap().replace(userId, pending, CompletableFuture.completedFuture(index));
+            }
+        });
+    }
+
+    private CompletableFuture<HnswIndex> build(String userId, ContextView context) {
+        SearchProperties.Semantic semantic = properties.getSemantic();
+        String model = aiService.getEmbeddingModel();
+        HnswIndex index = new HnswIndex(aiService.getEmbeddingDimensions(), semantic.getMaxLinks(),
+                semantic.getEfConstruction(), semantic.getEfSearch());
+        long started = System.nanoTime();
+        return noteRepository.findIdsByUserIdAndDeletedTrue(userId)
+                .map(Note::getId)
+                .collect(Collectors.toSet())
+                .flatMapMany(deleted -> embeddingRepository.findByUserId(userId)
+                        .filter(embedding -> {
+                            if (deleted.contains(embedding.getId())) {
+                                // Left behind when a note was deleted while it was being embedded
+                                discard(embedding);
+                                return false;
+                            }
+                            return true;
+                        }))
+                // Vectors from another model or size are replaced by the backfill below
+                .filter(embedding -> model.equals(embedding.getModel()) && embedding.getVector().length == index.dimensions())
+                // Graph construction is CPU bound; keep it off the driver's threads
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(embedding -> index.upsert(embedding.getId(), embedding.getTitle(), embedding.getVector()))
+                .then(Mono.fromCallable(() -> {
+                    log.debug("Built semantic index for user {} ({} notes, {} KiB) in {} ms", userId, index.liveCount(),
+                            index.estimatedBytes() / 1024, (System.nanoTime() - started) / 1_000_000);
+                    backfill(userId, index, context);
+                    return index;
+                }))
+                .toFuture();
+    }
+
+    private void discard(NoteEmbedding embedding) {
+        embeddingRepository.deleteById(embedding.getId())
+                .subscribe(null, e -> log.warn("Could not remove embedding of deleted note {}: {}", embedding.getId(), e.getMessage()));
+    }
+
+    /**
+     * Embeds notes that have no current embedding, e.g. ones written before semantic
+     * search existed or under another model. They join the index as they complete.
+     * Runs in the requesting user's context, as the AI scheduler queues calls by it.
+     */
+    private void backfill(String userId, HnswIndex index, ContextView context) {
+        noteRepository.countByUserIdAndDeletedFalse(userId)
+                .filter(notes -> notes > index.liveCount())
+                .flatMapMany(missing -> noteRepository.findByUserIdAndDeletedFalse(userId))
+                .filter(note -> index.vector(note.getId()) == null)
+                .flatMap(note -> embed(note)
+                                .onErrorResume(e -> {
+                                    log.warn("Could not embed note {}: {}", note.getId(), e.getMessage());
+                                    return Mono.empty();
+                                }),
+                        properties.getSemantic().getBackfillConcurrency())
+                .contextWrite(context)
+                .subscribe();
+    }
+
+    private int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, properties.getMaxResults()));
+    }
+
+    private static String embeddingText(Note note) {
+        String title = note.getTitle() != null ? note.getTitle() : "";
+        String content = note.getContent() != null ? note.getContent() : "";
+        return title + "\n\n" + content;
+    }
+
+    private static SearchResultDto toResult(HnswIndex.Hit hit) {
+        return new SearchResultDto(NOTE, hit.key(), hit.label(), hit.score());
+    }
+}
@@ -0,0 +1,179 @@
+package java.com.smartnotes.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Inverted index over one user's notes and tasks, ranked with BM25.
+ * <p>
+ * Documents are identified externally by a key such as {@code note:<id>} and
+ * internally by a dense int, so postings are plain int arrays. Ids of removed
+ * documents are reused. All methods are synchronized; an index only ever serves
+ * a single user, so contention is low.
+ */
+final class UserSearchIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    // Rough per-entry overheads used for the memory budget
+    private static final int TERM_OVERHEAD_BYTES = 96;
+    private static final int DOC_OVERHEAD_BYTES = 128;
+
+    record Hit(String key, String label, float score) {
+    }
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private String[] keys = new String[16];
+    private String[] labels = new String[16];
+    private String[][] docTerms = new String[16][];
+    private int[] lengths = new int[16];
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int nextId;
+    private int docCount;
+    private long totalLength;
+    private long estimatedBytes;
+
+    /**
+     * Indexes {@code text} under {@code key}, replacing anything indexed under it before.
+     *
+     * @param label shown in search results, e.g. the note title
+     */
+    synchronized void upsert(String key, String label, String text) {
+        remove(key);
+
+        List<String> tokens = Tokenizer.tokenize(text);
+        Map<String, int[]> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.computeIfAbsent(token, t -> new int[1])[0]++;
+        }
+
+        int id = allocateId();
+        keys[id] = key;
+        labels[id] = label;
+        lengths[id] = tokens.size();
+        String[] terms = new String[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+            String term = entry.getKey();
+            Postings termPostings = postings.get(term);
+            if (termPostings == null) {
+                termPostings = new Postings();
+                postings.put(term, termPostings);
+                estimatedBytes += TERM_OVERHEAD_BYTES + 2L * term.length();
+            }
+            estimatedBytes -= termPostings.estimatedBytes();
+            termPostings.add(id, entry.getValue()[0]);
+            estimatedBytes += termPostings.estimatedBytes();
+            terms[i++] = term;
+        }
+        docTerms[id] = terms;
+        docIds.put(key, id);
+        docCount++;
+        totalLength += tokens.size();
+        estimatedBytes += docBytes(id);
+    }
+
+    synchronized void remove(String key) {
+        Integer id = docIds.remove(key);
+        if (id == null) {
+            return;
+        }
+        estimatedBytes -= docBytes(id);
+        for (String term : docTerms[id]) {
+            Postings termPostings = postings.get(term);
+            termPostings.remove(id);
+            if (termPostings.size == 0) {
+                postings.remove(term);
+                estimatedBytes -= TERM_OVERHEAD_BYTES + 2L * term.length() + termPostings.estimatedBytes();
+            }
+        }
+        docCount--;
+        totalLength -= lengths[id];
+        keys[id] = null;
+        labels[id] = null;
+        docTerms[id] = null;
+        lengths[id] = 0;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    synchronized List<Hit> search(String query, int limit) {
+        if (docCount == 0) {
+            return List.of();
+        }
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        float averageLength = Math.max(1f, (float) totalLength / docCount);
+        float[] scores = new float[nextId];
+        int[] touched = new int[Math.min(nextId, 64)];
+        int touchedCount = 0;
+
+        for (String term : terms) {
+            Postings termPostings = postings.get(term);
+            if (termPostings == null) {
+                continue;
+            }
+            int df = termPostings.size;
+            float idf = (float) Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            for (int i = 0; i < termPostings.size; i++) {
+                int doc = termPostings.docs[i];
+                int tf = termPostings.freqs[i];
+                float norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                if (scores[doc] == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = doc;
+                }
+                scores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+            }
+        }
+
+        // Keep the best `limit` documents in a min-heap of ids ordered by score
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (a, b) -> Float.compare(scores[a], scores[b]));
+        for (int i = 0; i < touchedCount; i++) {
+            best.add(touched[i]);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            int doc = best.poll();
+            hits.add(new Hit(keys[doc], labels[doc], scores[doc]));
+        }
+        return hits.reversed();
+    }
+
+    synchronized long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    private int allocateId() {
+        if (freeCount > 0) {
+            return freeIds[--freeCount];
+        }
+        if (nextId == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        return nextId++;
+    }
+
+    private long docBytes(int id) {
+        long bytes = DOC_OVERHEAD_BYTES + 2L * keys[id].length() + 8L * docTerms[id].length;
+        return labels[id] != null ? bytes + 2L * labels[id].length() : bytes;
+    }
+}
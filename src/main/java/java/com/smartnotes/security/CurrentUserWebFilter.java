@@ -0,0 +1,29 @@
+package java.com.smartnotes.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves the authenticated {@code User} at most once per exchange, however many
+ * services call {@link SecurityUtils#getCurrentUser()} while handling it.
+ * <p>
+ * Ordered after Spring Security's filter chain (order -100), which puts the
+ * security context the lookup reads into the Reactor context.
+ */
+@Component
+@Order(0)
+@RequiredArgsConstructor
+public class CurrentUserWebFilter implements WebFilter {
+
+    private final SecurityUtils securityUtils;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return securityUtils.withMemoizedCurrentUser(chain.filter(exchange));
+    }
+}
@@ -0,0 +1,69 @@
+package java.com.smartnotes.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket rate limiter using the generic cell rate algorithm (GCRA).
+ * <p>
+ * Each key's bucket is a single {@link AtomicLong} holding the theoretical arrival
+ * time of the next request, updated with a CAS loop, so checks take no locks and
+ * allocate nothing once the bucket exists. The map itself is striped by
+ * {@link ConcurrentHashMap}.
+ */
+class GcraRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    GcraRateLimiter(int requestsPerMinute, int burst) {
+        this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / requestsPerMinute;
+        this.burstToleranceNanos = emissionIntervalNanos * burst;
+    }
+
+    /**
+     * Takes one request from {@code key}'s bucket.
+     *
+     * @return when allowed, the remaining requests (>= 0); when limited, the negated
+     * nanoseconds until a request would be allowed, minus one (always < 0)
+     */
+    long tryAcquire(String key, long nowNanos) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        }
+        while (true) {
+            long tat = bucket.get();
+            long newTat = Math.max(tat, nowNanos) + emissionIntervalNanos;
+            long backlog = newTat - nowNanos;
+            if (backlog > burstToleranceNanos) {
+                return -(backlog - burstToleranceNanos) - 1;
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                return (burstToleranceNanos - backlog) / emissionIntervalNanos;
+            }
+        }
+    }
+
+    /**
+     * Nanoseconds until {@code key}'s bucket is full again.
+     */
+    long nanosUntilFull(String key, long nowNanos) {
+        AtomicLong bucket = buckets.get(key);
+        return bucket != null ? Math.max(0, bucket.get() - nowNanos) : 0;
+    }
+
+    /**
+     * Drops buckets that have refilled completely; they are equivalent to a new bucket.
+     * A request racing with removal may go uncounted, which only errs on the lenient side.
+     */
+    void evictIdle(long nowNanos) {
+        buckets.values().removeIf(bucket -> bucket.get() <= nowNanos);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
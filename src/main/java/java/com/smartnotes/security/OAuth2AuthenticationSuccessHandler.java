@@ -33,7 +33,7 @@ public class OAuth2AuthenticationSuccessHandler implements ServerAuthenticationS
         
         return processOAuth2User(exchange, oauthToken, oauthUser)
                 .flatMap(user -> {
-                    String token = tokenProvider.generateToken(user.getEmail());
+                    String token = tokenProvider.generateToken(user.getId(), user.getEmail());
                     String targetUrl = determineTargetUrl(exchange);
                     
                     return httpCookieOAuth2AuthorizationRequestRepository.getRedirectUri(exchange)
@@ -0,0 +1,198 @@
+package java.com.smartnotes.security;
+
+import java.com.smartnotes.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user request rate limits, with a stricter class for routes that call the AI
+ * provider, listed in {@code AI_ROUTES}. Requests are keyed by the authenticated user, or by client address when
+ * there is none. Responses carry {@code RateLimit-Limit}, {@code RateLimit-Remaining}
+ * and {@code RateLimit-Reset}; limited requests get 429 with {@code Retry-After}.
+ * <p>
+ * Runs after Spring Security's filter chain (order -100) so the user is known, and
+ * before {@link CurrentUserWebFilter} so limited requests never reach the database.
+ */
+@Component
+@Order(-50)
+public class RateLimitWebFilter implements WebFilter, DisposableBean {
+
+    private static final String LIMIT_HEADER = "RateLimit-Limit";
+    private static final String REMAINING_HEADER = "RateLimit-Remaining";
+    private static final String RESET_HEADER = "RateLimit-Reset";
+    private static final byte[] REJECTED_BODY = "{\"error\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8);
+
+    // Every route that calls the AI provider, directly or through a queued job
+    private static final List<Route> AI_ROUTES = List.of(
+            new Route(HttpMethod.POST, "/api/notes/{id}/summarize"),
+            new Route(HttpMethod.POST, "/api/notes/{id}/summarize/stream"),
+            new Route(HttpMethod.POST, "/api/tasks/generate-from-note/{noteId}"),
+            new Route(HttpMethod.POST, "/api/ai/jobs"),
+            // Embeds the query, or the note when it has no embedding yet
+            new Route(HttpMethod.GET, "/api/search/semantic"),
+            new Route(HttpMethod.GET, "/api/notes/{id}/related"));
+
+    private record Route(HttpMethod method, PathPattern pattern) {
+        Route(HttpMethod method, String pattern) {
+            this(method, PathPatternParser.defaultInstance.parse(pattern));
+        }
+    }
+
+    private final boolean enabled;
+    private final LimitClass standard;
+    private final LimitClass ai;
+    private final ScheduledExecutorService sweeper;
+
+    public RateLimitWebFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.standard = new LimitClass("standard", properties.getStandard(), meterRegistry);
+        this.ai = new LimitClass("ai", properties.getAi(), meterRegistry);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepSeconds = properties.getIdleSweepSeconds();
+        sweeper.scheduleWithFixedDelay(() -> {
+            long now = System.nanoTime();
+            standard.limiter.evictIdle(now);
+            ai.limiter.evictIdle(now);
+        }, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+        LimitClass limitClass = isAiRoute(exchange.getRequest()) ? ai : standard;
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(Authentication::isAuthenticated)
+                .map(Authentication::getName)
+                .switchIfEmpty(Mono.fromSupplier(() -> clientAddress(exchange)))
+                .flatMap(key -> apply(limitClass, key, exchange, chain));
+    }
+
+    private Mono<Void> apply(LimitClass limitClass, String key, ServerWebExchange exchange, WebFilterChain chain) {
+        long now = System.nanoTime();
+        long result = limitClass.limiter.tryAcquire(key, now);
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.set(LIMIT_HEADER, limitClass.limitHeader);
+
+        if (result >= 0) {
+            limitClass.allowed.increment();
+            headers.set(REMAINING_HEADER, limitClass.count(result));
+            headers.set(RESET_HEADER, limitClass.seconds(limitClass.limiter.nanosUntilFull(key, now)));
+            return chain.filter(exchange);
+        }
+
+        limitClass.rejected.increment();
+        String retryAfter = limitClass.seconds(-result - 1);
+        headers.set(REMAINING_HEADER, limitClass.count(0));
+        headers.set(RESET_HEADER, retryAfter);
+        headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(REJECTED_BODY)));
+    }
+
+    private static boolean isAiRoute(ServerHttpRequest request) {
+        PathContainer path = request.getPath().pathWithinApplication();
+        for (Route route : AI_ROUTES) {
+            if (route.method().equals(request.getMethod()) && route.pattern().matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String clientAddress(ServerWebExchange exchange) {
+        InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+        return address != null ? address.getHostString() : "unknown";
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * A limiter plus its meters and preformatted header values, so allowed requests
+     * do not format numbers.
+     */
+    private static final class LimitClass {
+        private final GcraRateLimiter limiter;
+        private final String limitHeader;
+        private final String[] counts;
+        private final String[] seconds;
+        private final Counter allowed;
+        private final Counter rejected;
+
+        private LimitClass(String name, RateLimitProperties.Limit limit, MeterRegistry meterRegistry) {
+            this.limiter = new GcraRateLimiter(limit.getRequestsPerMinute(), limit.getBurst());
+            this.limitHeader = Integer.toString(limit.getBurst());
+            this.counts = new String[limit.getBurst() + 1];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = Integer.toString(i);
+            }
+            // Resets and retries never exceed the time to refill a whole burst
+            long maxSeconds = (long) Math.ceil(limit.getBurst() * 60.0 / limit.getRequestsPerMinute());
+            this.seconds = new String[(int) maxSeconds + 2];
+            for (int i = 0; i < seconds.length; i++) {
+                seconds[i] = Integer.toString(i);
+            }
+
+            this.allowed = Counter.builder("http.rate_limit.requests")
+                    .tag("class", name)
+                    .tag("outcome", "allowed")
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("http.rate_limit.requests")
+                    .tag("class", name)
+                    .tag("outcome", "rejected")
+                    .register(meterRegistry);
+            Gauge.builder("http.rate_limit.buckets", limiter, GcraRateLimiter::size)
+                    .tag("class", name)
+                    .description("Rate limit buckets currently held in memory")
+                    .register(meterRegistry);
+        }
+
+        private String count(long value) {
+            return counts[(int) Math.min(value, counts.length - 1)];
+        }
+
+        // Rounded up to whole seconds, as the headers require
+        private String seconds(long nanos) {
+            long value = (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+            return value < seconds.length ? seconds[(int) value] : Long.toString(value);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package java.com.smartnotes.security;
 
 import com.smartnotes.service.UserService;
+import java.com.smartnotes.security.jwt.BearerTokenConverter;
+import java.com.smartnotes.security.jwt.JwtReactiveAuthenticationManager;
+import java.com.smartnotes.security.jwt.JwtTokenProvider;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,13 +15,16 @@ import org.springframework.security.config.annotation.web.reactive.EnableWebFlux
 import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
 import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
 import org.springframework.security.web.server.authentication.logout.HttpStatusReturningServerLogoutSuccessHandler;
 import org.springframework.security.web.server.authentication.logout.ServerLogoutSuccessHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 @Configuration
 @EnableWebFluxSecurity
@@ -30,6 +36,9 @@ public class SecurityConfig {
     private final OAuth2AuthenticationSuccessHandler oauth2SuccessHandler;
     private final OAuth2AuthenticationFailureHandler oauth2FailureHandler;
     private final HttpCookieOAuth2AuthorizationRequestRepository cookieAuthorizationRequestRepository;
+    private final JwtTokenProvider tokenProvider;
+    private final PasswordEncoder passwordEncoder;
+    private final Scheduler passwordHashingScheduler;
 
     @Bean
     public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
@@ -69,11 +78,23 @@ public class SecurityConfig {
             .logout(logout -> logout
                 .logoutUrl("/auth/logout")
                 .logoutSuccessHandler(logoutSuccessHandler())
-            );
+            )
+            .addFilterAt(bearerTokenAuthenticationFilter(), SecurityWebFiltersOrder.AUTHENTICATION);
 
         return http.build();
     }
 
+    // Not a bean: a second ReactiveAuthenticationManager bean would be ambiguous for Spring Security
+    private AuthenticationWebFilter bearerTokenAuthenticationFilter() {
+        AuthenticationWebFilter filter = new AuthenticationWebFilter(new JwtReactiveAuthenticationManager(tokenProvider));
+        filter.setServerAuthenticationConverter(new BearerTokenConverter());
+        // Stateless: the token is checked on every request and nothing is kept in the session
+        filter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+        filter.setAuthenticationFailureHandler(new ServerAuthenticationEntryPointFailureHandler(
+                new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)));
+        return filter;
+    }
+
     @Bean
     public ReactiveUserDetailsService userDetailsService() {
         return userService;
@@ -83,15 +104,12 @@ public class SecurityConfig {
     public ReactiveAuthenticationManager reactiveAuthenticationManager() {
         UserDetailsRepositoryReactiveAuthenticationManager authManager = 
             new UserDetailsRepositoryReactiveAuthenticationManager(userService);
-        authManager.setPasswordEncoder(passwordEncoder());
+        authManager.setPasswordEncoder(passwordEncoder);
+        // BCrypt verification runs on the bounded hashing pool, never on the event loop
+        authManager.setScheduler(passwordHashingScheduler);
         return authManager;
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public ServerLogoutSuccessHandler logoutSuccessHandler() {
         return new HttpStatusReturningServerLogoutSuccessHandler();
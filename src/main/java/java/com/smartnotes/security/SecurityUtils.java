@@ -2,29 +2,64 @@ package java.com.smartnotes.security;
 
 import com.smartnotes.model.User;
 import com.smartnotes.service.UserService;
+import java.com.smartnotes.security.jwt.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
 @Component
 @RequiredArgsConstructor
 public class SecurityUtils {
 
+    // Reactor context key for the per-request user lookup installed by CurrentUserWebFilter
+    static final String CURRENT_USER_CONTEXT_KEY = SecurityUtils.class.getName() + ".currentUser";
+
     private final UserService userService;
 
+    /**
+     * The authenticated user. Inside a web request this is looked up at most once and
+     * shared by every caller; elsewhere (e.g. background jobs) it is looked up on each call.
+     */
     public Mono<User> getCurrentUser() {
+        return Mono.deferContextual(context -> context.<Mono<User>>getOrEmpty(CURRENT_USER_CONTEXT_KEY)
+                .orElseGet(this::lookupCurrentUser));
+    }
+
+    /**
+     * Runs {@code work} with a memoized current-user lookup in its context, so that
+     * {@link #getCurrentUser()} hits the database at most once for all of it.
+     */
+    public <T> Mono<T> withMemoizedCurrentUser(Mono<T> work) {
+        Mono<User> currentUser = lookupCurrentUser().cache();
+        return work.contextWrite(Context.of(CURRENT_USER_CONTEXT_KEY, currentUser));
+    }
+
+    private Mono<User> lookupCurrentUser() {
         return ReactiveSecurityContextHolder.getContext()
                 .map(SecurityContext::getAuthentication)
                 .filter(Authentication::isAuthenticated)
-                .map(Authentication::getPrincipal)
-                .flatMap(principal -> {
-                    if (principal instanceof String) {
+                .flatMap(authentication -> {
+                    Object principal = authentication.getPrincipal();
+                    if (principal instanceof AuthenticatedUser authenticatedUser) {
+                        // Bearer token requests carry the id in the token, no lookup needed
+                        return Mono.just(User.builder()
+                                .id(authenticatedUser.id())
+                                .email(authenticatedUser.email())
+                                .build());
+                    } else if (principal instanceof String) {
                         return userService.findByEmail((String) principal);
                     } else if (principal instanceof org.springframework.security.core.userdetails.User) {
                         return userService.findByEmail(((org.springframework.security.core.userdetails.User) principal).getUsername());
+                    } else if (authentication instanceof OAuth2AuthenticationToken oauthToken) {
+                        // Session login; the user was registered by email on the OAuth2 callback
+                        OAuth2UserInfo userInfo = OAuth2UserInfoFactory.getOAuth2UserInfo(
+                                oauthToken.getAuthorizedClientRegistrationId(), oauthToken.getPrincipal().getAttributes());
+                        return userService.findByEmail(userInfo.getEmail());
                     }
                     return Mono.empty();
                 });
@@ -35,7 +70,9 @@ public class SecurityUtils {
                 .map(SecurityContext::getAuthentication)
                 .filter(Authentication::isAuthenticated)
                 .map(authentication -> {
-                    if (authentication.getPrincipal() instanceof org.springframework.security.core.userdetails.User) {
+                    if (authentication.getPrincipal() instanceof AuthenticatedUser authenticatedUser) {
+                        return authenticatedUser.email();
+                    } else if (authentication.getPrincipal() instanceof org.springframework.security.core.userdetails.User) {
                         return ((org.springframework.security.core.userdetails.User) authentication.getPrincipal()).getUsername();
                     } else if (authentication.getPrincipal() instanceof String) {
                         return (String) authentication.getPrincipal();
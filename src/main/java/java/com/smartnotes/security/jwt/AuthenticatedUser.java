@@ -0,0 +1,15 @@
+package java.com.smartnotes.security.jwt;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * Principal of a request authenticated with a bearer token, built from the token's
+ * claims alone.
+ */
+public record AuthenticatedUser(String id, String email) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,45 @@
+package java.com.smartnotes.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Authenticates bearer tokens from their signed claims only, with no database lookup,
+ * so any instance can serve any request.
+ */
+@RequiredArgsConstructor
+public class JwtReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private static final List<GrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private final JwtTokenProvider tokenProvider;
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        String token = (String) authentication.getCredentials();
+        Claims claims;
+        try {
+            claims = tokenProvider.parseClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Mono.error(new BadCredentialsException("Invalid JWT token", e));
+        }
+
+        String userId = claims.get(JwtTokenProvider.USER_ID_CLAIM, String.class);
+        if (userId == null || claims.getSubject() == null) {
+            // Tokens issued before the user id claim was added
+            return Mono.error(new BadCredentialsException("JWT token has no user id, sign in again"));
+        }
+        AuthenticatedUser principal = new AuthenticatedUser(userId, claims.getSubject());
+        return Mono.just(UsernamePasswordAuthenticationToken.authenticated(principal, token, AUTHORITIES));
+    }
+}
@@ -1,71 +1,99 @@
 package java.com.smartnotes.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import java.com.smartnotes.util.ContentHash;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
 public class JwtTokenProvider {
 
+    // Claim carrying the user's id, so requests can be authenticated without a user lookup
+    public static final String USER_ID_CLAIM = "uid";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
     @Value("${app.jwt.expiration-ms}")
     private int jwtExpirationMs;
 
+    @Value("${app.jwt.claims-cache-size:10000}")
+    private long claimsCacheSize;
+
     private Key key;
+    // Thread-safe and expensive enough to build that it is shared by all requests
+    private JwtParser parser;
+    // Claims of tokens that already passed verification, keyed by a digest of the token
+    // so raw tokens are not kept in memory. Entries expire with the token.
+    private Cache<String, Claims> verifiedClaims;
 
     @PostConstruct
     public void init() {
-        byte[] keyBytes = Base64.getUrlDecoder().decode(jwtSecret);
-        this.key = Keys.hmacShaKeyFor(keyBytes);
+        if (jwtSecret == null || jwtSecret.isBlank()) {
+            log.warn("app.jwt.secret is not set; using a random key. Tokens will not survive a restart or work across instances");
+            this.key = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+        } else {
+            byte[] keyBytes = Base64.getUrlDecoder().decode(jwtSecret);
+            this.key = Keys.hmacShaKeyFor(keyBytes);
+        }
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(new TokenExpiry())
+                .build();
     }
 
-    public String generateToken(Authentication authentication) {
-        UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
-        
+    public String generateToken(String userId, String email) {
         return Jwts.builder()
-                .setSubject(userPrincipal.getUsername())
+                .setSubject(email)
+                .claim(USER_ID_CLAIM, userId)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
                 .signWith(key, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public String generateToken(String username) {
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key, SignatureAlgorithm.HS512)
-                .compact();
+    /**
+     * Verifies the signature and expiry and returns the claims.
+     *
+     * @throws JwtException if the token is invalid or expired
+     */
+    public Claims parseClaims(String token) {
+        String digest = ContentHash.sha256(token);
+        Claims claims = verifiedClaims.getIfPresent(digest);
+        if (claims == null) {
+            claims = verifyClaims(token);
+            verifiedClaims.put(digest, claims);
+        }
+        return claims;
+    }
+
+    // Full signature check, bypassing the cache
+    Claims verifyClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseClaims(token).getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(authToken);
+            parseClaims(authToken);
             return true;
         } catch (SecurityException e) {
             log.error("Invalid JWT signature: {}", e.getMessage());
@@ -80,4 +108,27 @@ public class JwtTokenProvider {
         }
         return false;
     }
+
+    private static final class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return TimeUnit.MINUTES.toNanos(5);
+            }
+            long remainingMs = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,289 @@
+package java.com.smartnotes.service;
+
+import java.com.smartnotes.config.AISchedulerProperties;
+import java.com.smartnotes.exception.AIQueueFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for calls to the AI provider.
+ * <p>
+ * Calls are queued per user and dispatched round-robin across users, so one user
+ * submitting a burst cannot starve everyone else. Dispatch is limited by a global
+ * concurrency cap and a token bucket sized to the provider's request quota. When the
+ * queue, or the caller's own share of it, is full, callers fail fast with
+ * {@link AIQueueFullException}.
+ */
+@Slf4j
+@Component
+public class AIExecutionScheduler implements DisposableBean {
+
+    private static final String ANONYMOUS = "anonymous";
+
+    private final AISchedulerProperties properties;
+    private final ScheduledExecutorService refillTimer;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    private final Object lock = new Object();
+    // Guarded by lock
+    private final Map<String, ArrayDeque<Pending<?>>> queues = new HashMap<>();
+    private final ArrayDeque<String> readyUsers = new ArrayDeque<>();
+    private int queued;
+    private int running;
+    private double tokens;
+    private long lastRefillNanos;
+    private boolean refillScheduled;
+    private boolean shutdown;
+
+    public AIExecutionScheduler(AISchedulerProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.refillTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ai-scheduler-refill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.tokens = properties.getBurstCapacity();
+        this.lastRefillNanos = System.nanoTime();
+
+        this.waitTimer = Timer.builder("ai.scheduler.wait")
+                .description("Time AI calls spend queued before being dispatched")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("ai.scheduler.rejected")
+                .description("AI calls rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("ai.scheduler.queue.depth", this, scheduler -> scheduler.queuedCount())
+                .register(meterRegistry);
+        Gauge.builder("ai.scheduler.running", this, scheduler -> scheduler.runningCount())
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> execute(Mono<T> work) {
+        return executeMany(work.flux()).singleOrEmpty();
+    }
+
+    /**
+     * Runs {@code work} once a slot is available. The slot is held until the
+     * returned publisher terminates or is cancelled, which makes this suitable for
+     * streaming responses as well.
+     */
+    public <T> Flux<T> executeMany(Flux<T> work) {
+        return currentUser()
+                .flatMapMany(user -> Flux.<T>create(sink -> enqueue(new Pending<>(user, work, sink))));
+    }
+
+    private Mono<String> currentUser() {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .defaultIfEmpty(ANONYMOUS);
+    }
+
+    private <T> void enqueue(Pending<T> pending) {
+        AIQueueFullException rejection = null;
+        synchronized (lock) {
+            if (shutdown) {
+                rejection = new AIQueueFullException("AI service is shutting down", 1);
+            } else if (queued >= properties.getMaxQueueSize()) {
+                rejection = new AIQueueFullException("AI service is busy, please retry later", retryAfterSeconds());
+            } else if (queuedFor(pending.user) >= properties.getMaxQueuePerUser()) {
+                // The user's own backlog is full; other users are still admitted
+                rejection = new AIQueueFullException("Too many AI requests in progress, please retry later",
+                        retryAfterSeconds(queuedFor(pending.user)));
+            } else {
+                ArrayDeque<Pending<?>> queue = queues.computeIfAbsent(pending.user, user -> new ArrayDeque<>());
+                if (queue.isEmpty()) {
+                    readyUsers.addLast(pending.user);
+                }
+                queue.addLast(pending);
+                queued++;
+            }
+        }
+
+        if (rejection != null) {
+            rejectedCounter.increment();
+            pending.sink.error(rejection);
+            return;
+        }
+
+        pending.sink.onDispose(() -> cancel(pending));
+        drain();
+    }
+
+    private void drain() {
+        List<Pending<?>> toStart = new ArrayList<>();
+        synchronized (lock) {
+            while (!shutdown && running < properties.getMaxConcurrent() && !readyUsers.isEmpty()) {
+                if (!tryAcquireToken()) {
+                    scheduleRefill();
+                    break;
+                }
+
+                // Take one call from the next user in line, then send that user to the back
+                String user = readyUsers.pollFirst();
+                ArrayDeque<Pending<?>> queue = queues.get(user);
+                Pending<?> next = queue.pollFirst();
+                queued--;
+                if (queue.isEmpty()) {
+                    queues.remove(user);
+                } else {
+                    readyUsers.addLast(user);
+                }
+
+                next.started = true;
+                running++;
+                toStart.add(next);
+            }
+        }
+        toStart.forEach(this::start);
+    }
+
+    private <T> void start(Pending<T> pending) {
+        waitTimer.record(System.nanoTime() - pending.enqueuedNanos, TimeUnit.NANOSECONDS);
+        pending.subscription = pending.work
+                .contextWrite(pending.sink.contextView())
+                .doFinally(signal -> {
+                    synchronized (lock) {
+                        running--;
+                    }
+                    drain();
+                })
+                .subscribe(pending.sink::next, pending.sink::error, pending.sink::complete);
+        // The caller may have cancelled between dispatch and subscription
+        if (pending.cancelled) {
+            pending.subscription.dispose();
+        }
+    }
+
+    private void cancel(Pending<?> pending) {
+        pending.cancelled = true;
+        Disposable subscription = pending.subscription;
+        if (subscription != null) {
+            subscription.dispose();
+            return;
+        }
+
+        synchronized (lock) {
+            if (pending.started) {
+                return;
+            }
+            ArrayDeque<Pending<?>> queue = queues.get(pending.user);
+            if (queue != null && queue.remove(pending)) {
+                queued--;
+                if (queue.isEmpty()) {
+                    queues.remove(pending.user);
+                    readyUsers.remove(pending.user);
+                }
+            }
+        }
+    }
+
+    // Must hold lock
+    private boolean tryAcquireToken() {
+        long now = System.nanoTime();
+        double perNano = properties.getRequestsPerMinute() / (double) TimeUnit.MINUTES.toNanos(1);
+        tokens = Math.min(properties.getBurstCapacity(), tokens + (now - lastRefillNanos) * perNano);
+        lastRefillNanos = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    // Must hold lock
+    private void scheduleRefill() {
+        if (refillScheduled) {
+            return;
+        }
+        refillScheduled = true;
+        double perNano = properties.getRequestsPerMinute() / (double) TimeUnit.MINUTES.toNanos(1);
+        long delayNanos = (long) Math.ceil((1 - tokens) / perNano);
+        refillTimer.schedule(() -> {
+            synchronized (lock) {
+                refillScheduled = false;
+            }
+            drain();
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Must hold lock. Rough time for the rate limiter to work through the current queue.
+    private long retryAfterSeconds() {
+        return retryAfterSeconds(queued);
+    }
+
+    private long retryAfterSeconds(int calls) {
+        double perSecond = properties.getRequestsPerMinute() / 60.0;
+        return Math.max(1, (long) Math.ceil(calls / perSecond));
+    }
+
+    // Must hold lock
+    private int queuedFor(String user) {
+        ArrayDeque<Pending<?>> queue = queues.get(user);
+        return queue != null ? queue.size() : 0;
+    }
+
+    private int queuedCount() {
+        synchronized (lock) {
+            return queued;
+        }
+    }
+
+    private int runningCount() {
+        synchronized (lock) {
+            return running;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        List<Pending<?>> abandoned = new ArrayList<>();
+        synchronized (lock) {
+            shutdown = true;
+            queues.values().forEach(abandoned::addAll);
+            queues.clear();
+            readyUsers.clear();
+            queued = 0;
+        }
+        log.info("Shutting down AI scheduler, rejecting {} queued calls", abandoned.size());
+        abandoned.forEach(pending -> pending.sink.error(new AIQueueFullException("AI service is shutting down", 1)));
+        refillTimer.shutdownNow();
+    }
+
+    private static final class Pending<T> {
+        private final String user;
+        private final Flux<T> work;
+        private final FluxSink<T> sink;
+        private final long enqueuedNanos = System.nanoTime();
+        private volatile boolean started;
+        private volatile boolean cancelled;
+        private volatile Disposable subscription;
+
+        private Pending(String user, Flux<T> work, FluxSink<T> sink) {
+            this.user = user;
+            this.work = work;
+            this.sink = sink;
+        }
+    }
+}
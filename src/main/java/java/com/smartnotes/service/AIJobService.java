@@ -0,0 +1,10 @@
+package java.com.smartnotes.service;
+
+import java.com.smartnotes.dto.AIJobDto;
+import java.com.smartnotes.dto.CreateAIJobRequest;
+import reactor.core.publisher.Mono;
+
+public interface AIJobService {
+    Mono<AIJobDto> enqueueJob(CreateAIJobRequest request);
+    Mono<AIJobDto> getJobById(String id);
+}
@@ -0,0 +1,60 @@
+package java.com.smartnotes.service;
+
+import com.smartnotes.exception.ResourceNotFoundException;
+import java.com.smartnotes.config.AIJobProperties;
+import java.com.smartnotes.dto.AIJobDto;
+import java.com.smartnotes.dto.CreateAIJobRequest;
+import java.com.smartnotes.model.AIJob;
+import java.com.smartnotes.repository.AIJobRepository;
+import java.com.smartnotes.repository.NoteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AIJobServiceImpl implements AIJobService {
+
+    private final AIJobRepository jobRepository;
+    private final NoteRepository noteRepository;
+    private final SecurityUtils securityUtils;
+    private final AIJobProperties properties;
+
+    @Override
+    public Mono<AIJobDto> enqueueJob(CreateAIJobRequest request) {
+        return securityUtils.getCurrentUser()
+                .flatMap(user -> noteRepository.existsByIdAndUserId(request.noteId(), user.getId())
+                        .flatMap(exists -> {
+                            if (!exists) {
+                                return Mono.error(new ResourceNotFoundException("Note not found with id: " + request.noteId()));
+                            }
+                            LocalDateTime now = LocalDateTime.now();
+                            AIJob job = AIJob.builder()
+                                    .userId(user.getId())
+                                    .userEmail(user.getEmail())
+                                    .noteId(request.noteId())
+                                    .type(request.type())
+                                    .status(AIJob.JobStatus.QUEUED)
+                                    .attempts(0)
+                                    .maxAttempts(properties.getMaxAttempts())
+                                    .nextRunAt(now)
+                                    .createdAt(now)
+                                    .build();
+                            return jobRepository.save(job);
+                        })
+                )
+                .map(AIJobDto::fromEntity);
+    }
+
+    @Override
+    public Mono<AIJobDto> getJobById(String id) {
+        return securityUtils.getCurrentUser()
+                .flatMap(user -> jobRepository.findByIdAndUserId(id, user.getId()))
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Job not found with id: " + id)))
+                .map(AIJobDto::fromEntity);
+    }
+}
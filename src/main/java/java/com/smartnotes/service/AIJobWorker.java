@@ -0,0 +1,187 @@
+package java.com.smartnotes.service;
+
+import com.smartnotes.exception.ResourceNotFoundException;
+import java.com.smartnotes.config.AIJobProperties;
+import java.com.smartnotes.dto.TaskDto;
+import java.com.smartnotes.exception.AIUnavailableException;
+import java.com.smartnotes.model.AIJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Processes queued AI jobs. Each worker loop claims one job at a time with an
+ * atomic findAndModify that takes a time-limited lease, so any number of
+ * instances can share the queue and a job abandoned by a crashed instance is
+ * picked up again once its lease expires.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AIJobWorker {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final NoteService noteService;
+    private final TaskService taskService;
+    private final AIJobProperties properties;
+
+    private final String workerId = UUID.randomUUID().toString();
+    private Disposable workers;
+
+    @PostConstruct
+    public void start() {
+        if (properties.getTimeoutSeconds() >= properties.getLeaseSeconds()) {
+            // Otherwise the lease runs out first and the outcome is discarded while another worker repeats the job
+            throw new IllegalStateException("app.ai.jobs.timeout-seconds must be shorter than app.ai.jobs.lease-seconds");
+        }
+        log.info("Starting {} AI job workers as {}", properties.getWorkers(), workerId);
+        workers = Flux.range(0, properties.getWorkers())
+                .flatMap(i -> workerLoop(), properties.getWorkers())
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Jobs in progress keep their lease and are retried elsewhere once it expires
+        if (workers != null) {
+            workers.dispose();
+        }
+    }
+
+    private Mono<Void> workerLoop() {
+        return claimNext()
+                .flatMap(job -> process(job).thenReturn(true))
+                .defaultIfEmpty(false)
+                .onErrorResume(e -> {
+                    log.error("AI job worker error: {}", e.getMessage(), e);
+                    return Mono.just(false);
+                })
+                // Keep claiming while there is work, back off only when the queue is empty
+                .flatMap(claimed -> claimed ? Mono.<Void>empty() : Mono.delay(Duration.ofMillis(properties.getPollIntervalMs())).then())
+                .repeat()
+                .then();
+    }
+
+    private Mono<AIJob> claimNext() {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("status").is(AIJob.JobStatus.QUEUED).and("nextRunAt").lte(now),
+                Criteria.where("status").is(AIJob.JobStatus.RUNNING).and("leaseExpiresAt").lte(now)
+        )).with(Sort.by(Sort.Direction.ASC, "nextRunAt"));
+
+        Update update = new Update()
+                .set("status", AIJob.JobStatus.RUNNING)
+                .set("leaseOwner", workerId)
+                .set("leaseExpiresAt", now.plusSeconds(properties.getLeaseSeconds()))
+                .set("updatedAt", now)
+                .inc("attempts", 1);
+
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), AIJob.class);
+    }
+
+    private Mono<Void> process(AIJob job) {
+        if (job.getAttempts() > job.getMaxAttempts()) {
+            return fail(job, "Gave up after " + job.getMaxAttempts() + " attempts");
+        }
+
+        Mono<Object> work = switch (job.getType()) {
+            // The summary endpoint answers with a fallback on provider errors; a job retries instead
+            case SUMMARIZE -> noteService.generateSummary(job.getNoteId())
+                    .flatMap(summary -> AIService.SUMMARY_UNAVAILABLE.equals(summary)
+                            ? Mono.<Object>error(new AIUnavailableException(summary))
+                            : Mono.just((Object) summary));
+            case GENERATE_TASKS -> taskService.generateTasksFromNote(job.getNoteId())
+                    .map(TaskDto::id)
+                    .collectList()
+                    .map(taskIds -> (Object) taskIds);
+        };
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                job.getUserEmail(), null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        return work
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication))
+                .timeout(Duration.ofSeconds(properties.getTimeoutSeconds()))
+                .flatMap(result -> succeed(job, result))
+                .onErrorResume(e -> retryOrFail(job, e));
+    }
+
+    private Mono<Void> succeed(AIJob job, Object result) {
+        LocalDateTime now = LocalDateTime.now();
+        return updateOwned(job, new Update()
+                .set("status", AIJob.JobStatus.SUCCEEDED)
+                .set("result", result)
+                .unset("error")
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt")
+                .set("completedAt", now)
+                .set("updatedAt", now));
+    }
+
+    private Mono<Void> retryOrFail(AIJob job, Throwable e) {
+        // Missing notes and empty content will not fix themselves
+        boolean permanent = e instanceof ResourceNotFoundException || e instanceof IllegalArgumentException;
+        if (permanent || job.getAttempts() >= job.getMaxAttempts()) {
+            log.warn("AI job {} failed after {} attempts: {}", job.getId(), job.getAttempts(), e.getMessage());
+            return fail(job, e.getMessage());
+        }
+
+        long backoffSeconds = Math.min(
+                properties.getBackoffMaxSeconds(),
+                properties.getBackoffBaseSeconds() << Math.min(job.getAttempts() - 1, 20));
+        log.info("AI job {} attempt {} failed, retrying in {}s: {}", job.getId(), job.getAttempts(), backoffSeconds, e.getMessage());
+
+        LocalDateTime now = LocalDateTime.now();
+        return updateOwned(job, new Update()
+                .set("status", AIJob.JobStatus.QUEUED)
+                .set("error", e.getMessage())
+                .set("nextRunAt", now.plusSeconds(backoffSeconds))
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt")
+                .set("updatedAt", now));
+    }
+
+    private Mono<Void> fail(AIJob job, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        return updateOwned(job, new Update()
+                .set("status", AIJob.JobStatus.FAILED)
+                .set("error", error)
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt")
+                .set("completedAt", now)
+                .set("updatedAt", now));
+    }
+
+    // Only the worker still holding the lease may record the outcome
+    private Mono<Void> updateOwned(AIJob job, Update update) {
+        Query query = new Query(Criteria.where("_id").is(job.getId())
+                .and("status").is(AIJob.JobStatus.RUNNING)
+                .and("leaseOwner").is(workerId));
+        return mongoTemplate.updateFirst(query, update, AIJob.class)
+                .doOnNext(result -> {
+                    if (result.getMatchedCount() == 0) {
+                        log.warn("Lost lease on AI job {}, outcome discarded", job.getId());
+                    }
+                })
+                .then();
+    }
+}
@@ -1,46 +1,196 @@
 package java.com.smartnotes.service;
 
-import com.theokanning.openai.completion.chat.ChatCompletionRequest;
-import com.theokanning.openai.completion.chat.ChatMessage;
-import com.theokanning.openai.completion.chat.ChatMessageRole;
-import com.theokanning.openai.service.OpenAiService;
-import jakarta.annotation.PostConstruct;
+import java.com.smartnotes.ai.AiCompletionRequest;
+import java.com.smartnotes.ai.AiEmbeddingRequest;
+import java.com.smartnotes.ai.AiProvider;
+import java.com.smartnotes.exception.AIQueueFullException;
+import java.com.smartnotes.exception.AIUnavailableException;
+import java.com.smartnotes.util.ContentHash;
+import java.com.smartnotes.util.TextChunker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AIService {
 
-    private final OpenAiService openAiService;
+    private final AiProvider aiProvider;
     private final OpenAIConfig.OpenAIConfigProperties config;
-    private ExecutorService executorService;
+    private final AIExecutionScheduler executionScheduler;
 
-    @PostConstruct
-    public void init() {
-        // Create a virtual thread executor for non-blocking AI operations
-        this.executorService = Executors.newVirtualThreadPerTaskExecutor();
-    }
+    public static final String SUMMARY_UNAVAILABLE = "Unable to generate summary at this time. Please try again later.";
+
+    private static final String SUMMARY_PROMPT = "Please provide a concise summary of the following text. Focus on the main points and key information.\n\n";
+
+    private static final String CHUNK_PROMPT = "The following text is one section of a longer document. " +
+            "Summarize this section concisely, keeping the key facts, decisions and action items.\n\n";
+
+    // Levels of summaries-of-summaries before the combined text is truncated instead
+    private static final int MAX_REDUCE_DEPTH = 3;
+
+    private static final String REDUCE_PROMPT = "The following are summaries of consecutive sections of one document. " +
+            "Combine them into a single concise summary of the whole document. Focus on the main points and key information.\n\n";
+
+    /**
+     * A summary plus the per-chunk summaries it was reduced from, keyed by chunk fingerprint.
+     * The chunk map is empty when the content fit in a single prompt.
+     */
+    public record SummaryResult(String summary, Map<String, String> chunkSummaries) {}
+
+    // A null summary marks a chunk the provider failed on
+    private record ChunkSummary(String key, String summary) {}
 
     public Mono<String> generateSummary(String content) {
-        String prompt = "Please provide a concise summary of the following text. Focus on the main points and key information.\n\n" + content;
+        String prompt = SUMMARY_PROMPT + content;
         
         return generateText(prompt)
-                .onErrorResume(e -> {
+                .onErrorResume(e -> !(e instanceof AIQueueFullException), e -> {
                     log.error("Error generating summary: {}", e.getMessage(), e);
-                    return Mono.just("Unable to generate summary at this time. Please try again later.");
+                    return Mono.just(SUMMARY_UNAVAILABLE);
+                });
+    }
+
+    /**
+     * Summarizes content of any length. Content that does not fit in one prompt is split on
+     * heading and paragraph boundaries, the chunks are summarized in parallel (subject to the
+     * AI scheduler's limits) and the partial summaries are reduced into one.
+     *
+     * @param cachedChunks chunk summaries from a previous run, keyed by chunk fingerprint;
+     *                     chunks found here are not sent to the provider again
+     */
+    public Mono<SummaryResult> summarize(String content, Map<String, String> cachedChunks) {
+        return summarize(content, cachedChunks, 0);
+    }
+
+    public boolean requiresChunking(String content) {
+        return content.length() > config.getMaxChunkChars();
+    }
+
+    /**
+     * If a chunk or the reduce step fails, the summary is {@link #SUMMARY_UNAVAILABLE} and
+     * the chunk map holds the chunk summaries that did succeed, so a retry only sends the
+     * failed chunks to the provider again.
+     */
+    private Mono<SummaryResult> summarize(String content, Map<String, String> cachedChunks, int depth) {
+        if (!requiresChunking(content)) {
+            return generateSummary(content)
+                    .map(summary -> new SummaryResult(summary, Map.of()));
+        }
+
+        return Flux.fromIterable(TextChunker.split(content, config.getMaxChunkChars()))
+                .flatMapSequential(chunk -> {
+                    String key = fingerprint(CHUNK_PROMPT, chunk);
+                    String cached = cachedChunks.get(key);
+                    if (cached != null) {
+                        return Mono.just(new ChunkSummary(key, cached));
+                    }
+                    return generateText(CHUNK_PROMPT + chunk)
+                            .map(summary -> new ChunkSummary(key, summary))
+                            // Let the other chunks finish so their summaries are kept
+                            .onErrorResume(e -> !(e instanceof AIQueueFullException), e -> {
+                                log.error("Error summarizing chunk: {}", e.getMessage(), e);
+                                return Mono.just(new ChunkSummary(key, null));
+                            });
+                })
+                .collectList()
+                .flatMap(partials -> {
+                    Map<String, String> chunkSummaries = new LinkedHashMap<>();
+                    partials.stream()
+                            .filter(partial -> partial.summary() != null)
+                            .forEach(partial -> chunkSummaries.put(partial.key(), partial.summary()));
+                    if (chunkSummaries.size() < partials.size()) {
+                        return Mono.just(new SummaryResult(SUMMARY_UNAVAILABLE, chunkSummaries));
+                    }
+                    String combined = partials.stream()
+                            .map(ChunkSummary::summary)
+                            .collect(Collectors.joining("\n\n"));
+                    return reduce(combined, depth)
+                            .map(summary -> new SummaryResult(summary, chunkSummaries))
+                            .onErrorResume(e -> !(e instanceof AIQueueFullException), e -> {
+                                log.error("Error generating chunked summary: {}", e.getMessage(), e);
+                                return Mono.just(new SummaryResult(SUMMARY_UNAVAILABLE, chunkSummaries));
+                            });
                 });
     }
 
+    // Partial summaries that are still too long are reduced hierarchically
+    private Mono<String> reduce(String combined, int depth) {
+        if (!requiresChunking(combined)) {
+            return generateText(REDUCE_PROMPT + combined);
+        }
+        if (depth + 1 >= MAX_REDUCE_DEPTH) {
+            // Chunk summaries are not getting shorter; reduce what fits in one prompt
+            log.warn("Chunk summaries still exceed {} chars after {} reduce levels, truncating",
+                    config.getMaxChunkChars(), MAX_REDUCE_DEPTH);
+            return generateText(REDUCE_PROMPT + combined.substring(0, config.getMaxChunkChars()));
+        }
+        return summarize(combined, Map.of(), depth + 1)
+                .map(SummaryResult::summary);
+    }
+
+    /**
+     * Streams the summary as the provider generates it. Errors are propagated so the
+     * caller can tell a complete summary from a partial one.
+     */
+    public Flux<String> streamSummary(String content) {
+        return streamText(SUMMARY_PROMPT + content);
+    }
+
+    /**
+     * Identifies the summary {@link #generateSummary(String)} would produce for the given content.
+     * Any change to the content, model, prompt or sampling parameters yields a different fingerprint.
+     */
+    public String summaryFingerprint(String content) {
+        return fingerprint(SUMMARY_PROMPT, content);
+    }
+
+    private String fingerprint(String prompt, String content) {
+        return ContentHash.sha256(
+                config.getModel(),
+                String.valueOf(config.getMaxTokens()),
+                String.valueOf(config.getTemperature()),
+                String.valueOf(config.getMaxChunkChars()),
+                prompt,
+                content
+        );
+    }
+
+    public String getModel() {
+        return config.getModel();
+    }
+
+    /**
+     * Embeds text for semantic search. Embedding calls share the provider's request
+     * quota, so they go through the same scheduler as completions. Text beyond one
+     * chunk is cut off; the start of a note says most about what it is about.
+     */
+    public Mono<float[]> embed(String text) {
+        String input = text.length() > config.getMaxChunkChars() ? text.substring(0, config.getMaxChunkChars()) : text;
+        return executionScheduler.execute(Mono.defer(() -> aiProvider.embed(new AiEmbeddingRequest(
+                config.getEmbeddingModel(),
+                input,
+                config.getEmbeddingDimensions()
+        ))));
+    }
+
+    public String getEmbeddingModel() {
+        return config.getEmbeddingModel();
+    }
+
+    public int getEmbeddingDimensions() {
+        return config.getEmbeddingDimensions();
+    }
+
     public Mono<List<String>> generateTaskSuggestions(String content) {
         String prompt = "Based on the following text, generate a list of actionable tasks. " +
                 "Each task should be a clear, actionable item that can be completed. " +
@@ -58,30 +208,27 @@ public class AIService {
                     }
                     return taskList;
                 })
-                .onErrorResume(e -> {
+                // Fail rather than fall back, so the error text is never saved as a task
+                .onErrorMap(e -> !(e instanceof AIQueueFullException), e -> {
                     log.error("Error generating task suggestions: {}", e.getMessage(), e);
-                    return Mono.just(List.of("Unable to generate tasks at this time. Please try again later."));
+                    return new AIUnavailableException("Unable to generate tasks at this time. Please try again later.");
                 });
     }
 
     private Mono<String> generateText(String prompt) {
-        return Mono.fromCallable(() -> {
-                    List<ChatMessage> messages = new ArrayList<>();
-                    messages.add(new ChatMessage(ChatMessageRole.USER.value(), prompt));
-
-                    ChatCompletionRequest completionRequest = ChatCompletionRequest.builder()
-                            .model(config.getModel())
-                            .messages(messages)
-                            .maxTokens(config.getMaxTokens())
-                            .temperature(config.getTemperature())
-                            .build();
-
-                    return openAiService.createChatCompletion(completionRequest)
-                            .getChoices()
-                            .get(0)
-                            .getMessage()
-                            .getContent();
-                })
-                .subscribeOn(Schedulers.fromExecutor(executorService));
+        return executionScheduler.execute(Mono.defer(() -> aiProvider.complete(buildRequest(prompt))));
+    }
+
+    private Flux<String> streamText(String prompt) {
+        return executionScheduler.executeMany(Flux.defer(() -> aiProvider.stream(buildRequest(prompt))));
+    }
+
+    private AiCompletionRequest buildRequest(String prompt) {
+        return new AiCompletionRequest(
+                config.getModel(),
+                prompt,
+                config.getMaxTokens(),
+                config.getTemperature()
+        );
     }
 }
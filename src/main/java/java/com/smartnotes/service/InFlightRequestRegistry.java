@@ -0,0 +1,66 @@
+package java.com.smartnotes.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent AI operations on the same note. The first caller for a
+ * (user, note, operation) key starts the work, every caller arriving while it is
+ * still running subscribes to the same pending result instead of issuing its own
+ * AI call and repository writes.
+ */
+@Slf4j
+@Component
+public class InFlightRequestRegistry {
+
+    public enum Operation {
+        SUMMARIZE,
+        GENERATE_TASKS
+    }
+
+    private record Key(String userId, String noteId, Operation operation) {}
+
+    private final Map<Key, Mono<?>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final int maxEntries;
+
+    public InFlightRequestRegistry(MeterRegistry meterRegistry,
+                                   @Value("${app.ai.in-flight.max-entries:10000}") int maxEntries) {
+        this.meterRegistry = meterRegistry;
+        this.maxEntries = maxEntries;
+        meterRegistry.gaugeMapSize("ai.requests.in-flight", List.of(), inFlight);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> join(String userId, String noteId, Operation operation, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            Key key = new Key(userId, noteId, operation);
+
+            Mono<T> pending = (Mono<T>) inFlight.get(key);
+            if (pending != null) {
+                meterRegistry.counter("ai.requests.coalesced", "operation", operation.name()).increment();
+                return pending;
+            }
+
+            if (inFlight.size() >= maxEntries) {
+                // Registry is full, run this call on its own rather than rejecting it
+                log.warn("In-flight registry full ({} entries), not coalescing {} for note {}", maxEntries, operation, noteId);
+                return call.get();
+            }
+
+            // Entries are only ever removed by the call that created them, so removing by key is safe.
+            // cache() keeps the shared call running even if the subscriber that started it cancels.
+            return (Mono<T>) inFlight.computeIfAbsent(key, k -> Mono.defer(call)
+                    .doFinally(signal -> inFlight.remove(k))
+                    .cache());
+        });
+    }
+}
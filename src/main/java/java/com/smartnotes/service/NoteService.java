@@ -2,17 +2,24 @@ package java.com.smartnotes.service;
 
 import com.smartnotes.dto.CreateNoteRequest;
 import com.smartnotes.dto.NoteDto;
+import java.com.smartnotes.dto.NoteListItemDto;
+import java.com.smartnotes.dto.PageResponse;
+import java.com.smartnotes.dto.PatchNoteRequest;
 import com.smartnotes.model.Note;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface NoteService {
-    Flux<NoteDto> getUserNotes(boolean includeArchived);
+    Flux<NoteDto> getUserNotes(boolean includeArchived, String fields);
+    Mono<PageResponse<NoteDto>> getUserNotesPage(boolean includeArchived, String cursor, int limit, String fields);
+    Flux<NoteListItemDto> getUserNoteListItems(boolean includeArchived);
     Mono<NoteDto> getNoteById(String id);
     Mono<NoteDto> createNote(CreateNoteRequest request);
+    Mono<NoteDto> patchNote(String id, PatchNoteRequest request);
     Mono<NoteDto> updateNote(String id, CreateNoteRequest request);
     Mono<Void> deleteNote(String id);
     Mono<NoteDto> archiveNote(String id, boolean archive);
     Mono<String> generateSummary(String noteId);
+    Flux<String> streamSummary(String noteId);
 }
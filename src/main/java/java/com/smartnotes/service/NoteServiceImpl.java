@@ -5,15 +5,30 @@ import com.smartnotes.dto.NoteDto;
 import com.smartnotes.exception.ResourceNotFoundException;
 import com.smartnotes.model.Note;
 import com.smartnotes.model.User;
+import java.com.smartnotes.exception.AIQueueFullException;
+import java.com.smartnotes.exception.AIUnavailableException;
+import java.com.smartnotes.dto.NoteListItemDto;
+import java.com.smartnotes.dto.PageResponse;
+import java.com.smartnotes.dto.PatchNoteRequest;
 import java.com.smartnotes.repository.NoteRepository;
+import java.com.smartnotes.search.SearchService;
+import java.com.smartnotes.search.SemanticSearchService;
+import java.com.smartnotes.util.FieldChanges;
+import java.com.smartnotes.util.PageCursor;
+import java.com.smartnotes.util.SparseFields;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -23,24 +38,54 @@ public class NoteServiceImpl implements NoteService {
     private final NoteRepository noteRepository;
     private final UserService userService;
     private final SecurityUtils securityUtils;
+    private final SearchService searchService;
+    private final SemanticSearchService semanticSearchService;
 
     @Override
-    public Flux<NoteDto> getUserNotes(boolean includeArchived) {
+    public Flux<NoteDto> getUserNotes(boolean includeArchived, String fields) {
+        Set<String> requested = SparseFields.parse(fields, NoteDto.FIELDS);
         return securityUtils.getCurrentUser()
                 .flatMapMany(user -> {
-                    if (includeArchived) {
-                        return noteRepository.findByUserAndDeletedFalse(user);
+                    if (requested != null) {
+                        return noteRepository.findForListing(user, includeArchived, requested);
+                    } else if (includeArchived) {
+                        return noteRepository.findByUserIdAndDeletedFalse(user.getId());
                     } else {
-                        return noteRepository.findByUserAndArchivedFalseAndDeletedFalse(user);
+                        return noteRepository.findByUserIdAndArchivedFalseAndDeletedFalse(user.getId());
                     }
                 })
-                .map(NoteDto::fromEntity);
+                .map(note -> NoteDto.fromEntity(note, requested));
+    }
+
+    @Override
+    public Mono<PageResponse<NoteDto>> getUserNotesPage(boolean includeArchived, String cursor, int limit, String fields) {
+        Set<String> requested = SparseFields.parse(fields, NoteDto.FIELDS);
+        int pageSize = PageCursor.clampLimit(limit);
+        PageCursor after = cursor != null ? PageCursor.decode(cursor) : null;
+        return securityUtils.getCurrentUser()
+                // Fetch one extra row to learn whether there is a next page
+                .flatMap(user -> noteRepository.findPage(user, includeArchived, after, pageSize + 1, requested).collectList())
+                .map(notes -> {
+                    List<Note> page = notes.size() > pageSize ? notes.subList(0, pageSize) : notes;
+                    String nextCursor = null;
+                    if (notes.size() > pageSize) {
+                        Note last = page.get(page.size() - 1);
+                        nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+                    }
+                    return new PageResponse<>(page.stream().map(note -> NoteDto.fromEntity(note, requested)).toList(), nextCursor);
+                });
+    }
+
+    @Override
+    public Flux<NoteListItemDto> getUserNoteListItems(boolean includeArchived) {
+        return securityUtils.getCurrentUser()
+                .flatMapMany(user -> noteRepository.findListItems(user, includeArchived, NoteListItemDto.PREVIEW_LENGTH));
     }
 
     @Override
     public Mono<NoteDto> getNoteById(String id) {
         return securityUtils.getCurrentUser()
-                .flatMap(user -> noteRepository.findByIdAndUser(id, user))
+                .flatMap(user -> noteRepository.findByIdAndUserId(id, user.getId()))
                 .switchIfEmpty(Mono.error(new ResourceNotFoundException("Note not found with id: " + id)))
                 .map(NoteDto::fromEntity);
     }
@@ -51,7 +96,7 @@ public class NoteServiceImpl implements NoteService {
         return securityUtils.getCurrentUser()
                 .flatMap(user -> {
                     Note note = Note.builder()
-                            .user(user)
+                            .userId(user.getId())
                             .title(request.title())
                             .content(request.content())
                             .archived(request.archived())
@@ -60,6 +105,8 @@ public class NoteServiceImpl implements NoteService {
                             .build();
                     return noteRepository.save(note);
                 })
+                .doOnNext(searchService::indexNote)
+                .flatMap(note -> semanticSearchService.scheduleEmbedding(note).thenReturn(note))
                 .map(NoteDto::fromEntity);
     }
 
@@ -67,7 +114,7 @@ public class NoteServiceImpl implements NoteService {
     @Transactional
     public Mono<NoteDto> updateNote(String id, CreateNoteRequest request) {
         return securityUtils.getCurrentUser()
-                .flatMap(user -> noteRepository.findByIdAndUser(id, user)
+                .flatMap(user -> noteRepository.findByIdAndUserId(id, user.getId())
                         .switchIfEmpty(Mono.error(new ResourceNotFoundException("Note not found with id: " + id)))
                         .flatMap(note -> {
                             note.setTitle(request.title());
@@ -76,55 +123,171 @@ public class NoteServiceImpl implements NoteService {
                             return noteRepository.save(note);
                         })
                 )
+                .doOnNext(searchService::indexNote)
+                .flatMap(note -> semanticSearchService.scheduleEmbedding(note).thenReturn(note))
                 .map(NoteDto::fromEntity);
     }
 
     @Override
-    @Transactional
-    public Mono<Void> deleteNote(String id) {
+    public Mono<NoteDto> patchNote(String id, PatchNoteRequest request) {
         return securityUtils.getCurrentUser()
-                .flatMap(user -> noteRepository.findByIdAndUser(id, user)
+                .flatMap(user -> noteRepository.findByIdAndUserId(id, user.getId())
                         .switchIfEmpty(Mono.error(new ResourceNotFoundException("Note not found with id: " + id)))
                         .flatMap(note -> {
-                            note.setDeleted(true);
-                            return noteRepository.save(note).then();
+                            if (!request.version().equals(note.getVersion())) {
+                                return Mono.error(staleVersion(id));
+                            }
+                            FieldChanges changes = new FieldChanges()
+                                    .compare("title", note.getTitle(), request.title())
+                                    .compare("content", note.getContent(), request.content())
+                                    .compare("archived", note.isArchived(), request.archived());
+                            if (changes.isEmpty()) {
+                                return Mono.just(note);
+                            }
+                            return noteRepository.updateFields(id, user.getId(), request.version(), changes.asMap())
+                                    // Someone else wrote the note between our read and the update
+                                    .switchIfEmpty(Mono.error(staleVersion(id)))
+                                    .doOnNext(searchService::indexNote)
+                                    .flatMap(updated -> semanticSearchService.scheduleEmbedding(updated).thenReturn(updated));
                         })
-                );
+                )
+                .map(NoteDto::fromEntity);
+    }
+
+    private static OptimisticLockingFailureException staleVersion(String id) {
+        return new OptimisticLockingFailureException("Note " + id + " has been modified, reload it and retry");
+    }
+
+    @Override
+    @Transactional
+    public Mono<Void> deleteNote(String id) {
+        return securityUtils.getCurrentUser()
+                .flatMap(user -> noteRepository.markDeleted(id, user.getId())
+                        .flatMap(deleted -> {
+                            if (!deleted) {
+                                return Mono.error(new ResourceNotFoundException("Note not found with id: " + id));
+                            }
+                            searchService.removeNote(user.getId(), id);
+                            return semanticSearchService.removeNote(user.getId(), id);
+                        }));
     }
 
     @Override
     @Transactional
     public Mono<NoteDto> archiveNote(String id, boolean archive) {
         return securityUtils.getCurrentUser()
-                .flatMap(user -> noteRepository.findByIdAndUser(id, user)
-                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Note not found with id: " + id)))
-                        .flatMap(note -> {
-                            note.setArchived(archive);
-                            return noteRepository.save(note);
-                        })
-                )
+                .flatMap(user -> noteRepository.updateArchived(id, user.getId(), archive))
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Note not found with id: " + id)))
                 .map(NoteDto::fromEntity);
     }
 
     private final AIService aiService;
+    private final MeterRegistry meterRegistry;
+    private final InFlightRequestRegistry inFlightRequestRegistry;
 
     @Override
     @Transactional
     public Mono<String> generateSummary(String noteId) {
         return securityUtils.getCurrentUser()
-                .flatMap(user -> noteRepository.findByIdAndUser(noteId, user)
-                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Note not found with id: " + noteId)))
-                        .flatMap(note -> {
-                            if (note.getContent() == null || note.getContent().isBlank()) {
-                                return Mono.just("Note is empty");
-                            }
-                            return aiService.generateSummary(note.getContent())
-                                    .flatMap(summary -> {
-                                        note.setSummary(summary);
-                                        return noteRepository.save(note)
-                                                .thenReturn(summary);
-                                    });
-                        })
-                );
+                .flatMap(user -> inFlightRequestRegistry.join(
+                        user.getId(),
+                        noteId,
+                        InFlightRequestRegistry.Operation.SUMMARIZE,
+                        () -> summarizeNote(user, noteId)
+                ));
+    }
+
+    private Mono<String> summarizeNote(User user, String noteId) {
+        return noteRepository.findByIdAndUserId(noteId, user.getId())
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Note not found with id: " + noteId)))
+                .flatMap(note -> {
+                    if (note.getContent() == null || note.getContent().isBlank()) {
+                        return Mono.just("Note is empty");
+                    }
+
+                    String fingerprint = aiService.summaryFingerprint(note.getContent());
+                    if (isSummaryCurrent(note, fingerprint)) {
+                        return Mono.just(note.getSummary());
+                    }
+
+                    return aiService.summarize(note.getContent(), cachedChunkSummaries(note))
+                            .flatMap(result -> saveSummary(note, result, fingerprint)
+                                    .thenReturn(result.summary()));
+                });
+    }
+
+    @Override
+    public Flux<String> streamSummary(String noteId) {
+        return securityUtils.getCurrentUser()
+                .flatMap(user -> noteRepository.findByIdAndUserId(noteId, user.getId()))
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Note not found with id: " + noteId)))
+                .flatMapMany(note -> {
+                    if (note.getContent() == null || note.getContent().isBlank()) {
+                        return Flux.just("Note is empty");
+                    }
+
+                    String fingerprint = aiService.summaryFingerprint(note.getContent());
+                    if (isSummaryCurrent(note, fingerprint)) {
+                        return Flux.just(note.getSummary());
+                    }
+
+                    // Long notes go through the chunked pipeline, which has nothing to stream until the final reduce
+                    if (aiService.requiresChunking(note.getContent())) {
+                        return aiService.summarize(note.getContent(), cachedChunkSummaries(note))
+                                .flatMap(result -> saveSummary(note, result, fingerprint)
+                                        // Saved first so the chunks that did succeed are kept, then
+                                        // failed like the streamed path so the client sees an error
+                                        .then(AIService.SUMMARY_UNAVAILABLE.equals(result.summary())
+                                                ? Mono.<String>error(new AIUnavailableException(AIService.SUMMARY_UNAVAILABLE))
+                                                : Mono.just(result.summary())))
+                                .flux();
+                    }
+
+                    // Persist only once the stream has completed, a failed stream leaves the old summary in place
+                    StringBuilder assembled = new StringBuilder();
+                    return aiService.streamSummary(note.getContent())
+                            .doOnNext(assembled::append)
+                            .concatWith(Mono.defer(() -> saveSummary(note, new AIService.SummaryResult(assembled.toString(), Map.of()), fingerprint))
+                                    .then(Mono.empty()))
+                            // Propagated so the caller can end the stream with an error rather than done
+                            .doOnError(e -> !(e instanceof AIQueueFullException),
+                                    e -> log.error("Error streaming summary: {}", e.getMessage(), e));
+                });
+    }
+
+    // Serve the stored summary when nothing that feeds the prompt has changed
+    private boolean isSummaryCurrent(Note note, String fingerprint) {
+        if (note.getSummary() != null && fingerprint.equals(note.getSummaryFingerprint())) {
+            meterRegistry.counter("ai.summary.cache", "result", "hit").increment();
+            return true;
+        }
+        meterRegistry.counter("ai.summary.cache", "result", "miss").increment();
+        return false;
+    }
+
+    private Map<String, String> cachedChunkSummaries(Note note) {
+        return note.getChunkSummaries() != null ? note.getChunkSummaries() : Map.of();
+    }
+
+    private Mono<Note> saveSummary(Note note, AIService.SummaryResult result, String fingerprint) {
+        note.setSummary(result.summary());
+        // Never cache the fallback message, the next request should retry
+        if (AIService.SUMMARY_UNAVAILABLE.equals(result.summary())) {
+            note.setSummaryFingerprint(null);
+            note.setSummaryModel(null);
+        } else {
+            note.setSummaryFingerprint(fingerprint);
+            note.setSummaryModel(aiService.getModel());
+        }
+        // Only the current chunks are kept, so the map never outgrows the note. After a
+        // failure these are the chunks that succeeded, which the retry does not redo.
+        if (!result.chunkSummaries().isEmpty() || !AIService.SUMMARY_UNAVAILABLE.equals(result.summary())) {
+            note.setChunkSummaries(result.chunkSummaries().isEmpty() ? null : result.chunkSummaries());
+        }
+        // Only the summary fields are written, so edits made during the AI call are neither
+        // lost nor turned into a version conflict. If the content itself changed, this
+        // summary is stale and is dropped.
+        return noteRepository.updateSummary(note)
+                .doOnNext(searchService::indexNote);
     }
 }
@@ -2,14 +2,19 @@ package java.com.smartnotes.service;
 
 import com.smartnotes.dto.CreateTaskRequest;
 import com.smartnotes.dto.TaskDto;
+import java.com.smartnotes.dto.PageResponse;
+import java.com.smartnotes.dto.PatchTaskRequest;
+import java.com.smartnotes.dto.TaskSort;
 import com.smartnotes.model.Task;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface TaskService {
-    Flux<TaskDto> getUserTasks(Task.TaskStatus status);
+    Flux<TaskDto> getUserTasks(Task.TaskStatus status, String fields);
+    Mono<PageResponse<TaskDto>> getUserTasksPage(Task.TaskStatus status, TaskSort sort, String cursor, int limit, String fields);
     Mono<TaskDto> getTaskById(String id);
     Mono<TaskDto> createTask(CreateTaskRequest request);
+    Mono<TaskDto> patchTask(String id, PatchTaskRequest request);
     Mono<TaskDto> updateTask(String id, CreateTaskRequest request);
     Mono<Void> deleteTask(String id);
     Mono<TaskDto> updateTaskStatus(String id, Task.TaskStatus status);
@@ -6,16 +6,27 @@ import com.smartnotes.exception.ResourceNotFoundException;
 import com.smartnotes.model.Note;
 import com.smartnotes.model.Task;
 import com.smartnotes.model.User;
+import java.com.smartnotes.dto.PageResponse;
+import java.com.smartnotes.dto.PatchTaskRequest;
+import java.com.smartnotes.dto.TaskSort;
 import java.com.smartnotes.repository.NoteRepository;
 import java.com.smartnotes.repository.TaskRepository;
+import java.com.smartnotes.search.SearchService;
+import java.com.smartnotes.util.FieldChanges;
+import java.com.smartnotes.util.PageCursor;
+import java.com.smartnotes.util.SparseFields;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -25,24 +36,48 @@ public class TaskServiceImpl implements TaskService {
     private final TaskRepository taskRepository;
     private final NoteRepository noteRepository;
     private final SecurityUtils securityUtils;
+    private final SearchService searchService;
 
     @Override
-    public Flux<TaskDto> getUserTasks(Task.TaskStatus status) {
+    public Flux<TaskDto> getUserTasks(Task.TaskStatus status, String fields) {
+        Set<String> requested = SparseFields.parse(fields, TaskDto.FIELDS);
         return securityUtils.getCurrentUser()
                 .flatMapMany(user -> {
-                    if (status != null) {
-                        return taskRepository.findByUserAndStatus(user, status);
+                    if (requested != null) {
+                        return taskRepository.findForListing(user, status, requested);
+                    } else if (status != null) {
+                        return taskRepository.findByUserIdAndStatus(user.getId(), status);
                     } else {
-                        return taskRepository.findByUser(user);
+                        return taskRepository.findByUserId(user.getId());
                     }
                 })
-                .map(TaskDto::fromEntity);
+                .map(task -> TaskDto.fromEntity(task, requested));
+    }
+
+    @Override
+    public Mono<PageResponse<TaskDto>> getUserTasksPage(Task.TaskStatus status, TaskSort sort, String cursor, int limit, String fields) {
+        Set<String> requested = SparseFields.parse(fields, TaskDto.FIELDS);
+        int pageSize = PageCursor.clampLimit(limit);
+        PageCursor after = cursor != null ? PageCursor.decode(cursor) : null;
+        return securityUtils.getCurrentUser()
+                // Fetch one extra row to learn whether there is a next page
+                .flatMap(user -> taskRepository.findPage(user, status, sort, after, pageSize + 1, requested).collectList())
+                .map(tasks -> {
+                    List<Task> page = tasks.size() > pageSize ? tasks.subList(0, pageSize) : tasks;
+                    String nextCursor = null;
+                    if (tasks.size() > pageSize) {
+                        Task last = page.get(page.size() - 1);
+                        LocalDateTime sortValue = sort == TaskSort.DUE_DATE ? last.getDueDate() : last.getCreatedAt();
+                        nextCursor = new PageCursor(sortValue, last.getId()).encode();
+                    }
+                    return new PageResponse<>(page.stream().map(task -> TaskDto.fromEntity(task, requested)).toList(), nextCursor);
+                });
     }
 
     @Override
     public Mono<TaskDto> getTaskById(String id) {
         return securityUtils.getCurrentUser()
-                .flatMap(user -> taskRepository.findByIdAndUser(id, user))
+                .flatMap(user -> taskRepository.findByIdAndUserId(id, user.getId()))
                 .switchIfEmpty(Mono.error(new ResourceNotFoundException("Task not found with id: " + id)))
                 .map(TaskDto::fromEntity);
     }
@@ -53,7 +88,7 @@ public class TaskServiceImpl implements TaskService {
         return securityUtils.getCurrentUser()
                 .flatMap(user -> {
                     Task task = Task.builder()
-                            .user(user)
+                            .userId(user.getId())
                             .description(request.description())
                             .dueDate(request.dueDate())
                             .status(request.status())
@@ -61,17 +96,17 @@ public class TaskServiceImpl implements TaskService {
                             .createdAt(LocalDateTime.now())
                             .build();
 
-                    // If noteId is provided, fetch and associate the note
+                    // If noteId is provided, check the note belongs to the user and link it
                     if (request.noteId() != null && !request.noteId().isBlank()) {
-                        return noteRepository.findByIdAndUser(request.noteId(), user)
-                                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Note not found with id: " + request.noteId())))
-                                .flatMap(note -> {
-                                    task.setNote(note);
+                        return requireOwnedNote(request.noteId(), user)
+                                .then(Mono.defer(() -> {
+                                    task.setNoteId(request.noteId());
                                     return taskRepository.save(task);
-                                });
+                                }));
                     }
                     return taskRepository.save(task);
                 })
+                .doOnNext(searchService::indexTask)
                 .map(TaskDto::fromEntity);
     }
 
@@ -79,7 +114,7 @@ public class TaskServiceImpl implements TaskService {
     @Transactional
     public Mono<TaskDto> updateTask(String id, CreateTaskRequest request) {
         return securityUtils.getCurrentUser()
-                .flatMap(user -> taskRepository.findByIdAndUser(id, user)
+                .flatMap(user -> taskRepository.findByIdAndUserId(id, user.getId())
                         .switchIfEmpty(Mono.error(new ResourceNotFoundException("Task not found with id: " + id)))
                         .flatMap(task -> {
                             task.setDescription(request.description());
@@ -88,78 +123,129 @@ public class TaskServiceImpl implements TaskService {
                             
                             // Update note reference if noteId is provided
                             if (request.noteId() != null && !request.noteId().isBlank()) {
-                                return noteRepository.findByIdAndUser(request.noteId(), user)
-                                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Note not found with id: " + request.noteId())))
-                                        .flatMap(note -> {
-                                            task.setNote(note);
+                                return requireOwnedNote(request.noteId(), user)
+                                        .then(Mono.defer(() -> {
+                                            task.setNoteId(request.noteId());
                                             return taskRepository.save(task);
-                                        });
+                                        }));
                             } else {
-                                task.setNote(null);
+                                task.setNoteId(null);
                                 return taskRepository.save(task);
                             }
                         })
                 )
+                .doOnNext(searchService::indexTask)
+                .map(TaskDto::fromEntity);
+    }
+
+    @Override
+    public Mono<TaskDto> patchTask(String id, PatchTaskRequest request) {
+        return securityUtils.getCurrentUser()
+                .flatMap(user -> taskRepository.findByIdAndUserId(id, user.getId())
+                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Task not found with id: " + id)))
+                        .flatMap(task -> {
+                            if (!request.version().equals(task.getVersion())) {
+                                return Mono.error(staleVersion(id));
+                            }
+                            FieldChanges changes = new FieldChanges()
+                                    .compare("noteId", task.getNoteId(), request.noteId())
+                                    .compare("description", task.getDescription(), request.description())
+                                    .compare("dueDate", task.getDueDate(), request.dueDate())
+                                    .compare("status", task.getStatus(), request.status());
+                            if (changes.isEmpty()) {
+                                return Mono.just(task);
+                            }
+                            Mono<Void> noteCheck = changes.asMap().containsKey("noteId")
+                                    ? requireOwnedNote(request.noteId(), user)
+                                    : Mono.empty();
+                            return noteCheck.then(taskRepository.updateFields(id, user.getId(), request.version(), changes.asMap()))
+                                    // Someone else wrote the task between our read and the update
+                                    .switchIfEmpty(Mono.error(staleVersion(id)))
+                                    .doOnNext(searchService::indexTask);
+                        })
+                )
                 .map(TaskDto::fromEntity);
     }
 
+    private static OptimisticLockingFailureException staleVersion(String id) {
+        return new OptimisticLockingFailureException("Task " + id + " has been modified, reload it and retry");
+    }
+
     @Override
     @Transactional
     public Mono<Void> deleteTask(String id) {
         return securityUtils.getCurrentUser()
-                .flatMap(user -> taskRepository.deleteByIdAndUser(id, user));
+                .flatMap(user -> taskRepository.deleteByIdAndUserId(id, user.getId())
+                        .doOnSuccess(ignored -> searchService.removeTask(user.getId(), id)));
     }
 
     @Override
     @Transactional
     public Mono<TaskDto> updateTaskStatus(String id, Task.TaskStatus status) {
         return securityUtils.getCurrentUser()
-                .flatMap(user -> taskRepository.findByIdAndUser(id, user)
-                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Task not found with id: " + id)))
-                        .flatMap(task -> {
-                            task.setStatus(status);
-                            return taskRepository.save(task);
-                        })
-                )
+                .flatMap(user -> taskRepository.updateStatus(id, user.getId(), status))
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Task not found with id: " + id)))
                 .map(TaskDto::fromEntity);
     }
 
     private final AIService aiService;
     private final NoteService noteService;
+    private final InFlightRequestRegistry inFlightRequestRegistry;
+    private final MeterRegistry meterRegistry;
 
     @Override
     @Transactional
     public Flux<TaskDto> generateTasksFromNote(String noteId) {
         return securityUtils.getCurrentUser()
-                .flatMapMany(user -> noteRepository.findByIdAndUser(noteId, user)
-                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Note not found with id: " + noteId)))
-                        .flatMapMany(note -> {
-                            if (note.getContent() == null || note.getContent().isBlank()) {
-                                return Flux.error(new IllegalArgumentException("Note content is empty"));
-                            }
-                            
-                            return aiService.generateTaskSuggestions(note.getContent())
-                                    .flatMapMany(tasks -> {
-                                        if (tasks.isEmpty()) {
-                                            return Flux.empty();
-                                        }
-                                        
-                                        return Flux.fromIterable(tasks)
-                                                .flatMap(taskDescription -> {
-                                                    Task task = Task.builder()
-                                                            .user(user)
-                                                            .note(note)
-                                                            .description(taskDescription)
-                                                            .status(Task.TaskStatus.TODO)
-                                                            .aiGenerated(true)
-                                                            .createdAt(LocalDateTime.now())
-                                                            .build();
-                                                    
-                                                    return taskRepository.save(task);
-                                                });
-                                    });
-                        })
-                )
+                .flatMap(user -> inFlightRequestRegistry.join(
+                        user.getId(),
+                        noteId,
+                        InFlightRequestRegistry.Operation.GENERATE_TASKS,
+                        () -> generateAndSaveTasks(user, noteId)
+                ))
+                .flatMapMany(Flux::fromIterable)
                 .map(TaskDto::fromEntity);
     }
+
+    private Mono<Void> requireOwnedNote(String noteId, User user) {
+        return noteRepository.existsByIdAndUserId(noteId, user.getId())
+                .flatMap(exists -> exists
+                        ? Mono.<Void>empty()
+                        : Mono.error(new ResourceNotFoundException("Note not found with id: " + noteId)));
+    }
+
+    private Mono<List<Task>> generateAndSaveTasks(User user, String noteId) {
+        return noteRepository.findByIdAndUserId(noteId, user.getId())
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Note not found with id: " + noteId)))
+                .flatMap(note -> {
+                    if (note.getContent() == null || note.getContent().isBlank()) {
+                        return Mono.error(new IllegalArgumentException("Note content is empty"));
+                    }
+
+                    return aiService.generateTaskSuggestions(note.getContent())
+                            .flatMap(suggestions -> {
+                                if (suggestions.isEmpty()) {
+                                    return Mono.just(List.<Task>of());
+                                }
+
+                                LocalDateTime now = LocalDateTime.now();
+                                List<Task> tasks = suggestions.stream()
+                                        .map(taskDescription -> Task.builder()
+                                                .userId(user.getId())
+                                                .noteId(note.getId())
+                                                .description(taskDescription)
+                                                .status(Task.TaskStatus.TODO)
+                                                .aiGenerated(true)
+                                                .createdAt(now)
+                                                .build())
+                                        .toList();
+                                meterRegistry.summary("ai.tasks.batch.size").record(tasks.size());
+
+                                // One insertMany round trip; results are emitted in the order of the batch
+                                return taskRepository.insert(tasks)
+                                        .doOnNext(searchService::indexTask)
+                                        .collectList();
+                            });
+                });
+    }
 }
@@ -8,6 +8,10 @@ import reactor.core.publisher.Mono;
 public interface UserService extends ReactiveUserDetailsService {
     Mono<User> registerUser(User user);
     Mono<User> findByEmail(String email);
+    /**
+     * Drops the cached copy of a user; call after any write to the user's document.
+     */
+    void evict(String email);
     Mono<Boolean> existsByEmail(String email);
     Mono<User> getCurrentUser();
     Mono<User> getCurrentUserOrError();
@@ -2,8 +2,13 @@ package java.com.smartnotes.service;
 
 import com.smartnotes.model.User;
 import java.com.smartnotes.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.com.smartnotes.config.UserCacheProperties;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,21 +16,40 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Collections;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final Scheduler passwordHashingScheduler;
+    // Keyed by email. Concurrent misses for the same email share one database read,
+    // and emails with no user are not cached.
+    private final AsyncCache<String, User> usersByEmail;
+
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           @Qualifier("passwordHashingScheduler") Scheduler passwordHashingScheduler,
+                           UserCacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingScheduler = passwordHashingScheduler;
+        this.usersByEmail = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(cacheProperties.getTtlSeconds()))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersByEmail, "users");
+    }
 
     @Override
     public Mono<UserDetails> findByUsername(String email) {
-        return userRepository.findByEmail(email)
+        return findByEmail(email)
                 .switchIfEmpty(Mono.error(new UsernameNotFoundException("User not found with email: " + email)))
                 .map(user -> new org.springframework.security.core.userdetails.User(
                         user.getEmail(),
@@ -42,18 +66,35 @@ public class UserServiceImpl implements UserService {
                         return Mono.error(new RuntimeException("Email already in use"));
                     }
                     
-                    user.setPassword(passwordEncoder.encode(user.getPassword()));
                     user.setEmailVerified(false);
                     user.setCreatedAt(LocalDateTime.now());
                     user.setActive(true);
                     
-                    return userRepository.save(user);
+                    return hashPassword(user.getPassword())
+                            .doOnNext(user::setPassword)
+                            .then(Mono.defer(() -> userRepository.save(user)))
+                            .doOnNext(saved -> evict(saved.getEmail()));
                 });
     }
 
+    // OAuth2 users have no password, so there may be nothing to hash
+    private Mono<String> hashPassword(String rawPassword) {
+        if (rawPassword == null) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> passwordEncoder.encode(rawPassword))
+                .subscribeOn(passwordHashingScheduler);
+    }
+
     @Override
     public Mono<User> findByEmail(String email) {
-        return userRepository.findByEmail(email);
+        // Concurrent callers share the load's future; one of them cancelling must not cancel it for the rest
+        return Mono.fromFuture(() -> usersByEmail.get(email, (key, executor) -> userRepository.findByEmail(key).toFuture()), true);
+    }
+
+    @Override
+    public void evict(String email) {
+        usersByEmail.synchronous().invalidate(email);
     }
 
     @Override
@@ -0,0 +1,33 @@
+package java.com.smartnotes.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Collects the fields of a partial update whose requested value differs from the
+ * stored one, so only those are written.
+ */
+public final class FieldChanges {
+
+    private final Map<String, Object> changes = new LinkedHashMap<>();
+
+    /**
+     * Records {@code requested} for {@code field} unless it is null (not requested)
+     * or equal to {@code current}.
+     */
+    public FieldChanges compare(String field, Object current, Object requested) {
+        if (requested != null && !Objects.equals(current, requested)) {
+            changes.put(field, requested);
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    public Map<String, Object> asMap() {
+        return changes;
+    }
+}
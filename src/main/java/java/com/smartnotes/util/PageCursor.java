@@ -0,0 +1,43 @@
+package java.com.smartnotes.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by (sort value, _id). Encoded as an opaque
+ * URL-safe token so clients cannot depend on its contents.
+ */
+public record PageCursor(LocalDateTime sortValue, String id) {
+
+    public static final int MAX_LIMIT = 100;
+
+    private static final char SEPARATOR = '|';
+
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(MAX_LIMIT, limit));
+    }
+
+    public String encode() {
+        String raw = (sortValue != null ? sortValue.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String sortValue = raw.substring(0, separator);
+            return new PageCursor(
+                    sortValue.isEmpty() ? null : LocalDateTime.parse(sortValue),
+                    raw.substring(separator + 1)
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package java.com.smartnotes.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Parses a {@code fields=} sparse fieldset parameter, e.g. {@code fields=id,title,updatedAt}.
+ */
+public final class SparseFields {
+
+    private SparseFields() {
+    }
+
+    /**
+     * @return the requested fields, or null when the parameter is absent and all fields are wanted
+     * @throws IllegalArgumentException if a requested field is not in {@code allowed}
+     */
+    public static Set<String> parse(String fields, Set<String> allowed) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> requested = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        for (String field : requested) {
+            if (!allowed.contains(field)) {
+                throw new IllegalArgumentException("Unknown field '" + field + "', expected any of " + allowed);
+            }
+        }
+        return requested;
+    }
+}
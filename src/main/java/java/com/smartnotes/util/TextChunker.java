@@ -0,0 +1,72 @@
+package java.com.smartnotes.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits long text into chunks of at most {@code maxChars} characters along
+ * heading and paragraph boundaries.
+ * <p>
+ * Every Markdown heading starts a new chunk and paragraphs are only packed
+ * together within a heading section. An edit to one section therefore leaves
+ * the chunks of every other section unchanged.
+ */
+public final class TextChunker {
+
+    private static final Pattern HEADING = Pattern.compile("(?m)^(?=#{1,6}\\s)");
+    private static final Pattern PARAGRAPH = Pattern.compile("\\n\\s*\\n");
+
+    private TextChunker() {
+    }
+
+    public static List<String> split(String text, int maxChars) {
+        List<String> chunks = new ArrayList<>();
+        for (String section : HEADING.split(text)) {
+            StringBuilder current = new StringBuilder();
+            for (String paragraph : PARAGRAPH.split(section)) {
+                String trimmed = paragraph.strip();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (current.length() > 0 && current.length() + 2 + trimmed.length() > maxChars) {
+                    chunks.add(current.toString());
+                    current.setLength(0);
+                }
+                if (trimmed.length() > maxChars) {
+                    splitOversized(trimmed, maxChars, chunks);
+                    continue;
+                }
+                if (current.length() > 0) {
+                    current.append("\n\n");
+                }
+                current.append(trimmed);
+            }
+            if (current.length() > 0) {
+                chunks.add(current.toString());
+            }
+        }
+        return chunks;
+    }
+
+    // A single paragraph longer than a chunk is cut at the last whitespace before the limit
+    private static void splitOversized(String paragraph, int maxChars, List<String> chunks) {
+        int start = 0;
+        while (paragraph.length() - start > maxChars) {
+            int end = start + maxChars;
+            int cut = end;
+            while (cut > start && !Character.isWhitespace(paragraph.charAt(cut))) {
+                cut--;
+            }
+            if (cut == start) {
+                cut = end;
+            }
+            chunks.add(paragraph.substring(start, cut).strip());
+            start = cut;
+        }
+        String rest = paragraph.substring(start).strip();
+        if (!rest.isEmpty()) {
+            chunks.add(rest);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package java.com.smartnotes.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a trivial task on a single-threaded "event loop" while a login storm
+ * runs, with BCrypt verification either inline on the loop (the old behaviour for
+ * signups) or handed off to a dedicated hashing pool.
+ * <p>
+ * Sample mode reports percentiles; compare p99 between the two modes.
+ * Not part of the test suite; run {@link #main} from the test classpath.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashingBenchmark {
+
+    // Logins in flight at once during the storm
+    private static final int STORM_CONCURRENCY = 16;
+
+    @Param({"INLINE", "OFFLOADED"})
+    public String mode;
+
+    @Param({"10"})
+    public int strength;
+
+    private Scheduler eventLoop;
+    private Scheduler hashingPool;
+    private ScheduledExecutorService stormDriver;
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hash = encoder.encode("correct horse battery staple");
+        eventLoop = Schedulers.newSingle("event-loop");
+        hashingPool = Schedulers.newParallel("password-hashing", 4);
+
+        Semaphore inFlight = new Semaphore(STORM_CONCURRENCY);
+        stormDriver = Executors.newSingleThreadScheduledExecutor();
+        stormDriver.scheduleWithFixedDelay(() -> {
+            while (inFlight.tryAcquire()) {
+                eventLoop.schedule(() -> login(inFlight));
+            }
+        }, 0, 1, TimeUnit.MILLISECONDS);
+    }
+
+    private void login(Semaphore inFlight) {
+        if ("INLINE".equals(mode)) {
+            encoder.matches("correct horse battery staple", hash);
+            inFlight.release();
+        } else {
+            Mono.fromCallable(() -> encoder.matches("correct horse battery staple", hash))
+                    .subscribeOn(hashingPool)
+                    .doFinally(signal -> inFlight.release())
+                    .subscribe();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stormDriver.shutdownNow();
+        eventLoop.dispose();
+        hashingPool.dispose();
+    }
+
+    @Benchmark
+    public Long unrelatedRequestOnEventLoop() {
+        return Mono.fromCallable(System::nanoTime)
+                .subscribeOn(eventLoop)
+                .block();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PasswordHashingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,233 @@
+package java.com.smartnotes.repository;
+
+import java.com.smartnotes.dto.TaskSort;
+import java.com.smartnotes.model.Note;
+import java.com.smartnotes.model.Task;
+import java.com.smartnotes.model.User;
+import java.com.smartnotes.repository.metrics.ExplainCommands;
+import java.com.smartnotes.support.CommandCapture;
+import java.com.smartnotes.support.MongoContainerTest;
+import java.com.smartnotes.util.PageCursor;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every repository query must be served by an index. Seeds a dataset shaped like
+ * production (many users, a share of archived, deleted, completed and AI generated
+ * rows), runs each repository method, and explains every command it sent. A test
+ * fails if a plan contains a collection scan, or reads many more documents than it
+ * returns, i.e. an index exists but does not match the filter.
+ * <p>
+ * A new repository method needs a case here, and usually an index in a change unit.
+ */
+@SpringBootTest(properties = "app.ai.provider=fake")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanRegressionTest extends MongoContainerTest {
+
+    private static final int USERS = 20;
+    private static final int NOTES_PER_USER = 200;
+    private static final int TASKS_PER_USER = 300;
+    // Documents examined per document returned before a plan counts as unselective
+    private static final double MAX_EXAMINED_PER_RETURNED = 2.0;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    private User user;
+    private Note note;
+    private Task task;
+    private Task disposableTask;
+
+    @BeforeAll
+    void seed() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<User> users = userRepository.saveAll(IntStream.range(0, USERS)
+                        .mapToObj(i -> User.builder()
+                                .email("user" + i + "@example.com")
+                                .name("User " + i)
+                                .createdAt(now)
+                                .build())
+                        .toList())
+                .collectList()
+                .block();
+
+        for (User owner : users) {
+            List<Note> notes = IntStream.range(0, NOTES_PER_USER)
+                    .mapToObj(i -> Note.builder()
+                            .userId(owner.getId())
+                            .title("Note " + i)
+                            .content("Meeting notes " + i)
+                            .createdAt(now.minusHours(i))
+                            .archived(random.nextDouble() < 0.2)
+                            .deleted(random.nextDouble() < 0.1)
+                            .version(0L)
+                            .build())
+                    .toList();
+            List<Note> savedNotes = noteRepository.insert(notes).collectList().block();
+
+            List<Task> tasks = IntStream.range(0, TASKS_PER_USER)
+                    .mapToObj(i -> Task.builder()
+                            .userId(owner.getId())
+                            .noteId(random.nextDouble() < 0.5 ? savedNotes.get(random.nextInt(savedNotes.size())).getId() : null)
+                            .description("Task " + i)
+                            .status(Task.TaskStatus.values()[random.nextInt(Task.TaskStatus.values().length)])
+                            .dueDate(random.nextDouble() < 0.3 ? null : now.plusDays(random.nextInt(60) - 30))
+                            .aiGenerated(random.nextDouble() < 0.2)
+                            .createdAt(now.minusMinutes(i))
+                            .version(0L)
+                            .build())
+                    .toList();
+            taskRepository.insert(tasks).blockLast();
+        }
+
+        user = users.get(0);
+        note = noteRepository.findByUserIdAndArchivedFalseAndDeletedFalse(user.getId()).blockFirst();
+        task = taskRepository.findByUserId(user.getId()).blockFirst();
+        disposableTask = taskRepository.findByUserId(user.getId()).skip(1).blockFirst();
+    }
+
+    @TestFactory
+    Stream<DynamicTest> repositoryQueriesAreIndexBacked() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Supplier<Publisher<?>>> queries = new LinkedHashMap<>();
+
+        queries.put("NoteRepository.findByUserIdAndDeletedFalse", () -> noteRepository.findByUserIdAndDeletedFalse(user.getId()));
+        queries.put("NoteRepository.findByUserIdAndArchivedFalseAndDeletedFalse", () -> noteRepository.findByUserIdAndArchivedFalseAndDeletedFalse(user.getId()));
+        queries.put("NoteRepository.findByUserIdAndArchivedTrueAndDeletedFalse", () -> noteRepository.findByUserIdAndArchivedTrueAndDeletedFalse(user.getId()));
+        queries.put("NoteRepository.findByIdAndUserId", () -> noteRepository.findByIdAndUserId(note.getId(), user.getId()));
+        queries.put("NoteRepository.existsByIdAndUserId", () -> noteRepository.existsByIdAndUserId(note.getId(), user.getId()));
+        queries.put("NoteRepository.countByUserId", () -> noteRepository.countByUserId(user.getId()));
+        queries.put("NoteRepository.countByUserIdAndDeletedFalse", () -> noteRepository.countByUserIdAndDeletedFalse(user.getId()));
+        queries.put("NoteRepository.findIdsByUserIdAndDeletedTrue", () -> noteRepository.findIdsByUserIdAndDeletedTrue(user.getId()));
+        queries.put("NoteRepository.findPage", () -> noteRepository.findPage(user, false, null, 21, null));
+        queries.put("NoteRepository.findPage after cursor", () -> noteRepository.findPage(user, true,
+                new PageCursor(now.minusHours(50), note.getId()), 21, Set.of("title")));
+        queries.put("NoteRepository.findForListing", () -> noteRepository.findForListing(user, false, Set.of("title", "createdAt")));
+        queries.put("NoteRepository.findListItems", () -> noteRepository.findListItems(user, false, 80));
+        queries.put("NoteRepository.updateArchived", () -> noteRepository.updateArchived(note.getId(), user.getId(), false));
+        queries.put("NoteRepository.markDeleted", () -> noteRepository.markDeleted("000000000000000000000000", user.getId()));
+        queries.put("NoteRepository.updateFields", () -> noteRepository.updateFields(note.getId(), user.getId(), -1, Map.of("title", "Renamed")));
+        queries.put("NoteRepository.updateSummary", () -> noteRepository.updateSummary(note));
+
+        queries.put("TaskRepository.findByUserIdAndDueDateAfterAndStatusNot", () -> taskRepository.findByUserIdAndDueDateAfterAndStatusNot(user.getId(), now, Task.TaskStatus.COMPLETED));
+        queries.put("TaskRepository.findByUserId", () -> taskRepository.findByUserId(user.getId()));
+        queries.put("TaskRepository.findByUserIdAndStatus", () -> taskRepository.findByUserIdAndStatus(user.getId(), Task.TaskStatus.TODO));
+        queries.put("TaskRepository.findByUserIdAndAiGeneratedTrue", () -> taskRepository.findByUserIdAndAiGeneratedTrue(user.getId()));
+        queries.put("TaskRepository.findByIdAndUserId", () -> taskRepository.findByIdAndUserId(task.getId(), user.getId()));
+        queries.put("TaskRepository.existsByIdAndUserId", () -> taskRepository.existsByIdAndUserId(task.getId(), user.getId()));
+        queries.put("TaskRepository.countByUserId", () -> taskRepository.countByUserId(user.getId()));
+        queries.put("TaskRepository.deleteByIdAndUserId", () -> taskRepository.deleteByIdAndUserId(disposableTask.getId(), user.getId()));
+        queries.put("TaskRepository.findPage by creation", () -> taskRepository.findPage(user, null, TaskSort.CREATED_AT, null, 21, null));
+        queries.put("TaskRepository.findPage by due date", () -> taskRepository.findPage(user, Task.TaskStatus.TODO, TaskSort.DUE_DATE,
+                new PageCursor(now, task.getId()), 21, null));
+        queries.put("TaskRepository.findForListing", () -> taskRepository.findForListing(user, Task.TaskStatus.IN_PROGRESS, Set.of("description")));
+        queries.put("TaskRepository.updateStatus", () -> taskRepository.updateStatus(task.getId(), user.getId(), Task.TaskStatus.IN_PROGRESS));
+        queries.put("TaskRepository.updateFields", () -> taskRepository.updateFields(task.getId(), user.getId(), -1, Map.of("description", "Renamed")));
+
+        queries.put("UserRepository.findByEmail", () -> userRepository.findByEmail(user.getEmail()));
+        queries.put("UserRepository.existsByEmail", () -> userRepository.existsByEmail(user.getEmail()));
+
+        return queries.entrySet().stream()
+                .map(query -> DynamicTest.dynamicTest(query.getKey(), () -> assertIndexBacked(query.getKey(), query.getValue())));
+    }
+
+    private void assertIndexBacked(String name, Supplier<Publisher<?>> query) {
+        List<BsonDocument> sent = commands.during(() -> Flux.from(query.get()).blockLast()).stream()
+                .filter(command -> ExplainCommands.isExplainable(CommandCapture.name(command)))
+                .toList();
+        assertThat(sent).as("%s sent no query", name).isNotEmpty();
+
+        for (BsonDocument command : sent) {
+            Document explain = explain(command);
+            List<String> stages = new ArrayList<>();
+            collectStages(explain, stages);
+            assertThat(stages).as("%s plan for %s", name, command.toJson()).doesNotContain("COLLSCAN");
+
+            Document stats = findExecutionStats(explain);
+            assertThat(stats).as("%s has no execution stats", name).isNotNull();
+            long examined = ((Number) stats.get("totalDocsExamined")).longValue();
+            long returned = ((Number) stats.get("nReturned")).longValue();
+            assertThat(examined)
+                    .as("%s examined %d documents to return %d", name, examined, returned)
+                    .isLessThanOrEqualTo((long) Math.ceil(MAX_EXAMINED_PER_RETURNED * Math.max(returned, 1)));
+        }
+    }
+
+    private Document explain(BsonDocument command) {
+        BsonDocument explainCommand = ExplainCommands.explain(command, "executionStats");
+        return mongoTemplate.getMongoDatabase()
+                .flatMap(database -> Mono.from(database.runCommand(explainCommand)))
+                .block();
+    }
+
+    // Stage names of the chosen plan, wherever the server nests them
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            document.forEach((key, value) -> {
+                if ("stage".equals(key) && value instanceof String stage) {
+                    stages.add(stage);
+                } else if (!"rejectedPlans".equals(key) && !"allPlansExecution".equals(key)) {
+                    collectStages(value, stages);
+                }
+            });
+        } else if (node instanceof List<?> list) {
+            list.forEach(item -> collectStages(item, stages));
+        }
+    }
+
+    // Top level for find and writes, under the $cursor stage for aggregations
+    private static Document findExecutionStats(Object node) {
+        if (node instanceof Document document) {
+            if (document.containsKey("totalDocsExamined") && document.containsKey("nReturned")) {
+                return document;
+            }
+            for (Object value : document.values()) {
+                Document stats = findExecutionStats(value);
+                if (stats != null) {
+                    return stats;
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object item : list) {
+                Document stats = findExecutionStats(item);
+                if (stats != null) {
+                    return stats;
+                }
+            }
+        }
+        return null;
+    }
+}
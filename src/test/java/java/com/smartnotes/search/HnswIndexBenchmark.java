@@ -0,0 +1,167 @@
+package java.com.smartnotes.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * k-NN latency of {@link HnswIndex} at the size semantic search is specified for:
+ * 100k notes with 256-dimensional embeddings, the target being a p99 under 20 ms.
+ * Vectors are clustered like real embeddings. Setup also prints recall@10 against an
+ * exact search, so a faster configuration cannot pass by returning worse neighbours.
+ * <p>
+ * Sample mode reports percentiles; read p99. Building the index takes a minute or two.
+ * Not part of the test suite; run {@link #main} from the test classpath.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HnswIndexBenchmark {
+
+    private static final int CLUSTERS = 200;
+    private static final int QUERIES = 1_000;
+    private static final int RECALL_QUERIES = 100;
+    private static final int K = 10;
+
+    @Param({"100000"})
+    public int notes;
+
+    @Param({"256"})
+    public int dimensions;
+
+    @Param({"64"})
+    public int efSearch;
+
+    private final Random random = new Random(42);
+    private float[][] vectors;
+    private float[][] queries;
+    private HnswIndex index;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        float[][] centres = new float[CLUSTERS][];
+        for (int c = 0; c < CLUSTERS; c++) {
+            centres[c] = gaussian(1.0f);
+        }
+        vectors = new float[notes][];
+        for (int n = 0; n < notes; n++) {
+            vectors[n] = around(centres[random.nextInt(CLUSTERS)], 0.5f);
+        }
+        // Queries near stored notes, as with related notes and most searches
+        queries = new float[QUERIES][];
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = around(vectors[random.nextInt(notes)], 0.3f);
+        }
+
+        long started = System.nanoTime();
+        index = new HnswIndex(dimensions, 16, 100, efSearch);
+        for (int n = 0; n < notes; n++) {
+            index.upsert("note-" + n, "Note " + n, vectors[n]);
+        }
+        System.out.printf("%nBuilt %d x %d index (%d MiB) in %d s, recall@%d %.3f%n", notes, dimensions,
+                index.estimatedBytes() >> 20, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started), K, recall());
+    }
+
+    @Benchmark
+    public List<HnswIndex.Hit> search() {
+        float[] query = queries[next];
+        next = (next + 1) % QUERIES;
+        return index.search(query, K, null);
+    }
+
+    private double recall() {
+        int found = 0;
+        for (int q = 0; q < RECALL_QUERIES; q++) {
+            Set<String> exact = exactNeighbours(queries[q]);
+            for (HnswIndex.Hit hit : index.search(queries[q], K, null)) {
+                if (exact.contains(hit.key())) {
+                    found++;
+                }
+            }
+        }
+        return found / (double) (K * RECALL_QUERIES);
+    }
+
+    // Keeps the K best by cosine with a small insertion-sorted buffer
+    private Set<String> exactNeighbours(float[] query) {
+        int[] best = new int[K];
+        double[] scores = new double[K];
+        Arrays.fill(scores, Double.NEGATIVE_INFINITY);
+        for (int n = 0; n < notes; n++) {
+            double score = cosine(vectors[n], query);
+            if (score <= scores[K - 1]) {
+                continue;
+            }
+            int i = K - 1;
+            while (i > 0 && scores[i - 1] < score) {
+                scores[i] = scores[i - 1];
+                best[i] = best[i - 1];
+                i--;
+            }
+            scores[i] = score;
+            best[i] = n;
+        }
+        Set<String> keys = new HashSet<>();
+        for (int n : best) {
+            keys.add("note-" + n);
+        }
+        return keys;
+    }
+
+    private float[] gaussian(float scale) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian() * scale;
+        }
+        return vector;
+    }
+
+    private float[] around(float[] centre, float spread) {
+        float[] vector = gaussian(spread);
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] += centre[i];
+        }
+        return vector;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HnswIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+package java.com.smartnotes.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 64;
+    private static final int NOTES = 5_000;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void approximateNeighboursMatchExactSearch() {
+        float[][] vectors = clusteredVectors();
+        HnswIndex index = indexOf(vectors);
+
+        int found = 0;
+        int queries = 100;
+        for (int q = 0; q < queries; q++) {
+            float[] query = vectors[random.nextInt(NOTES)].clone();
+            query[0] += 0.5f;
+            Set<String> exact = exactNeighbours(vectors, query, 10);
+            found += (int) index.search(query, 10, null).stream()
+                    .filter(hit -> exact.contains(hit.key()))
+                    .count();
+        }
+        assertThat(found / (10.0 * queries)).isGreaterThan(0.95);
+    }
+
+    @Test
+    void removedAndExcludedNotesAreNotReturned() {
+        float[][] vectors = clusteredVectors();
+        HnswIndex index = indexOf(vectors);
+        index.remove("note-1");
+
+        List<HnswIndex.Hit> hits = index.search(vectors[1], 10, "note-2");
+
+        assertThat(hits).hasSize(10)
+                .extracting(HnswIndex.Hit::key)
+                .doesNotContain("note-1", "note-2");
+        assertThat(index.vector("note-1")).isNull();
+    }
+
+    @Test
+    void upsertReplacesTheVector() {
+        HnswIndex index = indexOf(clusteredVectors());
+        float[] moved = new float[DIMENSIONS];
+        moved[DIMENSIONS - 1] = 1;
+        index.upsert("note-3", "Moved", moved);
+
+        HnswIndex.Hit best = index.search(moved, 1, null).get(0);
+
+        assertThat(best.key()).isEqualTo("note-3");
+        assertThat(best.label()).isEqualTo("Moved");
+        assertThat(best.score()).isCloseTo(1.0f, offset(1e-5f));
+        assertThat(index.liveCount()).isEqualTo(NOTES);
+    }
+
+    private float[][] clusteredVectors() {
+        float[][] centres = new float[20][DIMENSIONS];
+        for (float[] centre : centres) {
+            for (int i = 0; i < DIMENSIONS; i++) {
+                centre[i] = (float) random.nextGaussian();
+            }
+        }
+        float[][] vectors = new float[NOTES][DIMENSIONS];
+        for (float[] vector : vectors) {
+            float[] centre = centres[random.nextInt(centres.length)];
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] = centre[i] + (float) random.nextGaussian() * 0.5f;
+            }
+        }
+        return vectors;
+    }
+
+    private static HnswIndex indexOf(float[][] vectors) {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 16, 100, 64);
+        for (int n = 0; n < vectors.length; n++) {
+            index.upsert("note-" + n, "Note " + n, vectors[n]);
+        }
+        return index;
+    }
+
+    private static Set<String> exactNeighbours(float[][] vectors, float[] query, int k) {
+        return IntStream.range(0, vectors.length)
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer n) -> -cosine(vectors[n], query)))
+                .limit(k)
+                .map(n -> "note-" + n)
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+}
@@ -0,0 +1,79 @@
+package java.com.smartnotes.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token.
+ * <ul>
+ *   <li>{@code rebuiltParsers}: the old path, which built a parser and verified the
+ *   signature once to validate and again to read the subject</li>
+ *   <li>{@code sharedParser}: a single verification with the prebuilt parser, i.e. a cache miss</li>
+ *   <li>{@code cachedClaims}: a repeat request served from the verified-claims cache</li>
+ * </ul>
+ * Not part of the test suite; run {@link #main} from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationBenchmark {
+
+    private JwtTokenProvider tokenProvider;
+    private Key key;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        key = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", Base64.getUrlEncoder().encodeToString(key.getEncoded()));
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(tokenProvider, "claimsCacheSize", 10_000L);
+        tokenProvider.init();
+        token = tokenProvider.generateToken("64b7f0c2e4b0a1a2b3c4d5e6", "user@example.com");
+    }
+
+    @Benchmark
+    public String rebuiltParsers() {
+        Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String sharedParser() {
+        return tokenProvider.verifyClaims(token).getSubject();
+    }
+
+    @Benchmark
+    public String cachedClaims() {
+        return tokenProvider.parseClaims(token).getSubject();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
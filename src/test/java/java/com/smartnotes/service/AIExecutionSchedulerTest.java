@@ -0,0 +1,61 @@
+package java.com.smartnotes.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.com.smartnotes.config.AISchedulerProperties;
+import java.com.smartnotes.exception.AIQueueFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AIExecutionSchedulerTest {
+
+    private final AIExecutionScheduler scheduler = new AIExecutionScheduler(properties(), new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        scheduler.destroy();
+    }
+
+    @Test
+    void oneUserFillingTheirShareDoesNotLockOutOthers() throws Exception {
+        // Holds the only slot, so everything after it queues
+        Disposable running = as("alice", scheduler.execute(Mono.never())).subscribe();
+        CompletableFuture<String> aliceFirst = as("alice", scheduler.execute(Mono.just("a1"))).toFuture();
+        CompletableFuture<String> aliceSecond = as("alice", scheduler.execute(Mono.just("a2"))).toFuture();
+
+        assertThatThrownBy(() -> as("alice", scheduler.execute(Mono.just("a3"))).block(Duration.ofSeconds(1)))
+                .isInstanceOf(AIQueueFullException.class);
+
+        CompletableFuture<String> bob = as("bob", scheduler.execute(Mono.just("b1"))).toFuture();
+        assertThat(bob).isNotDone();
+
+        running.dispose();
+        assertThat(bob.get(5, TimeUnit.SECONDS)).isEqualTo("b1");
+        assertThat(aliceFirst.get(5, TimeUnit.SECONDS)).isEqualTo("a1");
+        assertThat(aliceSecond.get(5, TimeUnit.SECONDS)).isEqualTo("a2");
+    }
+
+    private static <T> Mono<T> as(String user, Mono<T> call) {
+        return call.contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of())));
+    }
+
+    private static AISchedulerProperties properties() {
+        AISchedulerProperties properties = new AISchedulerProperties();
+        properties.setMaxConcurrent(1);
+        properties.setMaxQueueSize(10);
+        properties.setMaxQueuePerUser(2);
+        return properties;
+    }
+}
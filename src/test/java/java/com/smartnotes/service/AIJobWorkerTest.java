@@ -0,0 +1,114 @@
+package java.com.smartnotes.service;
+
+import java.com.smartnotes.model.AIJob;
+import java.com.smartnotes.model.Note;
+import java.com.smartnotes.model.User;
+import java.com.smartnotes.repository.AIJobRepository;
+import java.com.smartnotes.repository.NoteRepository;
+import java.com.smartnotes.repository.TaskRepository;
+import java.com.smartnotes.repository.UserRepository;
+import java.com.smartnotes.support.MongoContainerTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A job whose AI call fails must go back on the queue with a backoff instead of
+ * succeeding with the fallback text the HTTP endpoints answer with.
+ */
+@SpringBootTest(properties = {
+        "app.ai.provider=fake",
+        "app.ai.fake.error-rate=1.0",
+        "app.ai.fake.latency-ms=10",
+        "app.ai.jobs.poll-interval-ms=50",
+        "app.ai.jobs.backoff-base-seconds=60"
+})
+class AIJobWorkerTest extends MongoContainerTest {
+
+    @Autowired
+    private AIJobRepository jobRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private User user;
+    private Note note;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        user = userRepository.save(User.builder()
+                .email(UUID.randomUUID() + "@example.com")
+                .name("Test User")
+                .createdAt(now)
+                .build()).block();
+        note = noteRepository.save(Note.builder()
+                .userId(user.getId())
+                .title("Sprint planning")
+                .content("Plan the next sprint")
+                .createdAt(now)
+                .build()).block();
+    }
+
+    @Test
+    void failedSummaryIsRequeuedWithBackoff() {
+        LocalDateTime submitted = LocalDateTime.now();
+        AIJob job = awaitRetry(submit(AIJob.JobType.SUMMARIZE));
+
+        assertThat(job.getStatus()).isEqualTo(AIJob.JobStatus.QUEUED);
+        assertThat(job.getAttempts()).isEqualTo(1);
+        assertThat(job.getError()).isNotBlank();
+        assertThat(job.getResult()).isNull();
+        assertThat(job.getNextRunAt()).isAfter(submitted.plusSeconds(30));
+        assertThat(noteRepository.findById(note.getId()).block().getSummaryFingerprint()).isNull();
+    }
+
+    @Test
+    void failedTaskGenerationIsRequeuedWithoutSavingTasks() {
+        LocalDateTime submitted = LocalDateTime.now();
+        AIJob job = awaitRetry(submit(AIJob.JobType.GENERATE_TASKS));
+
+        assertThat(job.getStatus()).isEqualTo(AIJob.JobStatus.QUEUED);
+        assertThat(job.getAttempts()).isEqualTo(1);
+        assertThat(job.getError()).isNotBlank();
+        assertThat(job.getNextRunAt()).isAfter(submitted.plusSeconds(30));
+        assertThat(taskRepository.findAll().filter(task -> note.getId().equals(task.getNoteId())).count().block()).isZero();
+    }
+
+    private AIJob submit(AIJob.JobType type) {
+        LocalDateTime now = LocalDateTime.now();
+        return jobRepository.save(AIJob.builder()
+                .userId(user.getId())
+                .userEmail(user.getEmail())
+                .noteId(note.getId())
+                .type(type)
+                .status(AIJob.JobStatus.QUEUED)
+                .attempts(0)
+                .maxAttempts(5)
+                .nextRunAt(now)
+                .createdAt(now)
+                .build()).block();
+    }
+
+    // Polls until a worker has tried the job once and released it
+    private AIJob awaitRetry(AIJob job) {
+        return Mono.defer(() -> jobRepository.findById(job.getId()))
+                .filter(current -> current.getAttempts() > 0 && current.getStatus() != AIJob.JobStatus.RUNNING)
+                .repeatWhenEmpty(ticks -> ticks.delayElements(Duration.ofMillis(100)))
+                .block(Duration.ofSeconds(10));
+    }
+}
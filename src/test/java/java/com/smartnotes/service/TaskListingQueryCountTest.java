@@ -0,0 +1,102 @@
+package java.com.smartnotes.service;
+
+import java.com.smartnotes.model.Note;
+import java.com.smartnotes.model.Task;
+import java.com.smartnotes.model.User;
+import java.com.smartnotes.repository.NoteRepository;
+import java.com.smartnotes.repository.TaskRepository;
+import java.com.smartnotes.repository.UserRepository;
+import java.com.smartnotes.support.CommandCapture;
+import java.com.smartnotes.support.MongoContainerTest;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Listing tasks should cost a fixed number of Mongo queries however many tasks
+ * there are, i.e. no per-row lookups of the owning user or the linked note.
+ */
+@SpringBootTest(properties = "app.ai.provider=fake")
+class TaskListingQueryCountTest extends MongoContainerTest {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        user = userRepository.save(User.builder()
+                .email(UUID.randomUUID() + "@example.com")
+                .name("Test User")
+                .createdAt(now)
+                .build()).block();
+        Note note = noteRepository.save(Note.builder()
+                .userId(user.getId())
+                .title("Sprint planning")
+                .content("Plan the next sprint")
+                .createdAt(now)
+                .build()).block();
+        List<Task> tasks = IntStream.range(0, 50)
+                .mapToObj(i -> Task.builder()
+                        .userId(user.getId())
+                        .noteId(note.getId())
+                        .description("Task " + i)
+                        .status(Task.TaskStatus.TODO)
+                        .createdAt(now.plusSeconds(i))
+                        .build())
+                .toList();
+        taskRepository.insert(tasks).blockLast();
+        commands.start();
+    }
+
+    @Test
+    void listingTasksDoesNotLoadReferencesPerRow() {
+        List<?> listed = taskService.getUserTasks(null, null)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                        new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of())))
+                .collectList()
+                .block();
+
+        List<BsonDocument> finds = commands.stop().stream()
+                .filter(command -> "find".equals(CommandCapture.name(command)))
+                .toList();
+
+        assertThat(listed).hasSize(50);
+        // One lookup for the current user, one query for the tasks
+        assertThat(finds).extracting(CommandCapture::collection).containsExactlyInAnyOrder("users", "tasks");
+    }
+
+    @Test
+    void listedTasksKeepTheirNoteId() {
+        String noteId = taskService.getUserTasks(null, null)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                        new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of())))
+                .blockFirst()
+                .noteId();
+
+        assertThat(noteId).isNotNull();
+        assertThat(noteRepository.existsByIdAndUserId(noteId, user.getId()).block()).isTrue();
+    }
+}
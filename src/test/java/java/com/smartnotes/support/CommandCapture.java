@@ -0,0 +1,78 @@
+package java.com.smartnotes.support;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps a copy of every command the application sends to MongoDB while capturing is on.
+ */
+public class CommandCapture implements CommandListener {
+
+    private final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+    private volatile boolean capturing;
+
+    @TestConfiguration(proxyBeanMethods = false)
+    public static class Config {
+
+        @Bean
+        CommandCapture commandCapture() {
+            return new CommandCapture();
+        }
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer commandCaptureCustomizer(CommandCapture commandCapture) {
+            return settings -> settings.addCommandListener(commandCapture);
+        }
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (capturing) {
+            // The event's document is only valid during the callback
+            commands.add(event.getCommand().clone());
+        }
+    }
+
+    /**
+     * Drops anything captured so far and captures from now on.
+     */
+    public void start() {
+        commands.clear();
+        capturing = true;
+    }
+
+    /**
+     * Stops capturing and returns the commands sent since {@link #start()}, in order.
+     */
+    public List<BsonDocument> stop() {
+        capturing = false;
+        return List.copyOf(commands);
+    }
+
+    public List<BsonDocument> during(Runnable action) {
+        start();
+        try {
+            action.run();
+        } finally {
+            capturing = false;
+        }
+        return List.copyOf(commands);
+    }
+
+    // The command name is always the document's first key
+    public static String name(BsonDocument command) {
+        return command.getFirstKey();
+    }
+
+    public static String collection(BsonDocument command) {
+        String name = name(command);
+        return command.isString(name) ? command.getString(name).getValue() : null;
+    }
+}
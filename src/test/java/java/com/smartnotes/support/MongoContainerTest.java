@@ -0,0 +1,31 @@
+package java.com.smartnotes.support;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+
+/**
+ * Base for tests against a real MongoDB. One replica set container is started for the
+ * whole run and shared by every test class; Testcontainers removes it when the JVM
+ * exits. Commands the application sends can be inspected through {@link #commands}.
+ */
+@Import(CommandCapture.Config.class)
+public abstract class MongoContainerTest {
+
+    private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    static {
+        MONGO.start();
+    }
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", MONGO::getReplicaSetUrl);
+        registry.add("spring.data.mongodb.database", () -> "test");
+    }
+
+    @Autowired
+    protected CommandCapture commands;
+}